@@ -0,0 +1,99 @@
+package com.microservicecrud.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request validation done by {@code createUser}/{@code updateUser} and the Jackson serialization of user
+ * pages, using an {@link ObjectMapper} configured the way Spring MVC configures its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserControllerBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Page {
+
+    @Param({"1", "100", "10000"})
+    int users;
+
+    UserPageDto page;
+
+    @Setup
+    public void setUp() {
+      List<UserDto> userDtos = new ArrayList<>(users);
+      for (int i = 0; i < users; i++) {
+        UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + i + "@g.com");
+        userDto.setUserId(i + 1);
+        userDto.setAccount(accounts(2));
+        userDtos.add(userDto);
+      }
+      page = new UserPageDto(userDtos, (long) users);
+    }
+  }
+
+  private UserDto newUser;
+
+  private List<AccountDto> updatedAccounts;
+
+  private ObjectWriter pageWriter;
+
+  @Setup
+  public void setUp() {
+    newUser = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    newUser.setAccount(accounts(2));
+    updatedAccounts = accounts(5);
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    pageWriter = objectMapper.writerFor(UserPageDto.class);
+  }
+
+  @Benchmark
+  public String validateNewUser() {
+    return UserController.validateNewUser(newUser);
+  }
+
+  @Benchmark
+  public boolean validateUpdatedAccounts() {
+    return UserController.hasOnlyAllowedAccountTypes(updatedAccounts);
+  }
+
+  @Benchmark
+  public byte[] serializeUserPage(Page page) throws Exception {
+    return pageWriter.writeValueAsBytes(page.page);
+  }
+
+  private static List<AccountDto> accounts(int count) {
+    List<AccountDto> accounts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      AccountDto accountDto = new AccountDto();
+      accountDto.setAccountId((long) i + 1);
+      accountDto.setAccountType(i % 2 == 0 ? "savings" : "salaried");
+      accountDto.setBalance(100F * i);
+      accounts.add(accountDto);
+    }
+    return accounts;
+  }
+}
@@ -0,0 +1,113 @@
+package com.microservicecrud.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.mapper.UserProtoMapper;
+import com.microservicecrud.proto.UserPageProto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a page of users in each representation {@code GET /api/users} can negotiate. The
+ * Jackson mappers are built the way Spring MVC builds them for its converters; protobuf goes through
+ * {@link UserProtoMapper} like the message converter does. The payload size of each format is logged
+ * in the setup of every fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPayloadBenchmark {
+
+  private static final Logger log = LoggerFactory.getLogger(UserPayloadBenchmark.class);
+
+  @Param({"json", "smile", "cbor", "protobuf"})
+  String format;
+
+  @Param({"1000"})
+  int users;
+
+  private UserPageDto page;
+
+  private byte[] payload;
+
+  private ObjectWriter writer;
+
+  private ObjectReader reader;
+
+  private UserProtoMapper userProtoMapper;
+
+  @Setup
+  public void setUp() throws Exception {
+    List<UserDto> userDtos = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + i + "@g.com");
+      userDto.setUserId(i + 1);
+      List<AccountDto> accounts = new ArrayList<>();
+      accounts.add(new AccountDto(2L * i + 1, 100F, "savings", null));
+      accounts.add(new AccountDto(2L * i + 2, 2500F, "salaried", null));
+      userDto.setAccount(accounts);
+      userDtos.add(userDto);
+    }
+    page = new UserPageDto(userDtos, (long) users);
+
+    userProtoMapper = new UserProtoMapper();
+    ObjectMapper objectMapper = objectMapper(format);
+    if (objectMapper != null) {
+      writer = objectMapper.writerFor(UserPageDto.class);
+      reader = objectMapper.readerFor(UserPageDto.class);
+    }
+    payload = encode();
+    log.info("{} payload of {} users: {} bytes", format, users, payload.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws Exception {
+    if (writer != null) {
+      return writer.writeValueAsBytes(page);
+    }
+    return userProtoMapper.toProto(page).toByteArray();
+  }
+
+  @Benchmark
+  public UserPageDto decode() throws Exception {
+    if (reader != null) {
+      return reader.readValue(payload);
+    }
+    return userProtoMapper.toDto(UserPageProto.parseFrom(payload));
+  }
+
+  private static ObjectMapper objectMapper(String format) {
+    switch (format) {
+      case "json":
+        return Jackson2ObjectMapperBuilder.json().build();
+      case "smile":
+        return Jackson2ObjectMapperBuilder.smile().build();
+      case "cbor":
+        return Jackson2ObjectMapperBuilder.cbor().build();
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link UserMapper} with the per-call ModelMapper conversion that {@code UserService} used to do
+ * for a single {@code GET /api/users/{id}}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+  private final UserMapper userMapper = new UserMapper();
+
+  private User user;
+
+  @Setup
+  public void setUp() {
+    user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    user.setUserId(1);
+    List<Account> accounts = new ArrayList<>();
+    accounts.add(new Account(100F, "savings", user));
+    accounts.add(new Account(2500F, "salaried", user));
+    user.setAccounts(accounts);
+  }
+
+  @Benchmark
+  public UserDto modelMapperPerCall() {
+    ModelMapper model = new ModelMapper();
+    ModelMapper model1 = new ModelMapper();
+
+    UserDto userDto = model.map(user, UserDto.class);
+    List<AccountDto> accountDtos = new ArrayList<>();
+    for (Account account : user.getAccounts()) {
+      accountDtos.add(model1.map(account, AccountDto.class));
+    }
+    userDto.setAccount(accountDtos);
+    return userDto;
+  }
+
+  @Benchmark
+  public UserDto userMapper() {
+    return userMapper.toDto(user);
+  }
+}
@@ -0,0 +1,95 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.MicroserviceCrudApplication;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts the same users one {@code saveUser} transaction at a time, the way repeated {@code POST /api/users}
+ * calls do, and through {@code saveUsers} in a single batched transaction. Runs against an in-memory H2
+ * database, so it measures the statement and transaction overhead saved by batching; against MySQL the
+ * saved network round trips add to the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserInsertBenchmark {
+
+  @Param({"1000"})
+  int users;
+
+  private ConfigurableApplicationContext context;
+
+  private UserService userService;
+
+  private List<UserDto> userDtos;
+
+  private int created;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = new SpringApplicationBuilder(MicroserviceCrudApplication.class)
+      .run("--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:insert-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=sa",
+        "--spring.jpa.show-sql=false",
+        "--logging.level.root=warn");
+    userService = context.getBean(UserService.class);
+  }
+
+  @Setup(Level.Invocation)
+  public void createUsers() {
+    userDtos = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      AccountDto accountDto = new AccountDto();
+      accountDto.setAccountType("savings");
+      accountDto.setBalance(100F);
+      List<AccountDto> accounts = new ArrayList<>();
+      accounts.add(accountDto);
+
+      UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + created++ + "@g.com");
+      userDto.setAccount(accounts);
+      userDtos.add(userDto);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+  }
+
+  @Benchmark
+  public void singleInserts() {
+    for (UserDto userDto : userDtos) {
+      userService.saveUser(userDto);
+    }
+  }
+
+  @Benchmark
+  public List<Long> batchInsert() {
+    return userService.saveUsers(userDtos);
+  }
+}
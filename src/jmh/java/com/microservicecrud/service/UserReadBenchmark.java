@@ -0,0 +1,112 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.MicroserviceCrudApplication;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a list of users with their accounts as entities and converts them, once in a read-write transaction
+ * and once in a read-only one. The read-only transaction loads the entities without dirty-checking snapshots
+ * and skips the flush at commit; run with the gc profiler, {@code gc.alloc.rate.norm} is the heap allocated
+ * per list read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserReadBenchmark {
+
+  @Param({"1000"})
+  int users;
+
+  private ConfigurableApplicationContext context;
+
+  private UserRepository userRepository;
+
+  private UserMapper userMapper;
+
+  private TransactionTemplate readWrite;
+
+  private TransactionTemplate readOnly;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = new SpringApplicationBuilder(MicroserviceCrudApplication.class)
+      .run("--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:read-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=sa",
+        "--spring.jpa.show-sql=false",
+        "--logging.level.root=warn");
+    userRepository = context.getBean(UserRepository.class);
+    userMapper = context.getBean(UserMapper.class);
+    PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    List<UserDto> userDtos = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      List<AccountDto> accounts = new ArrayList<>();
+      accounts.add(account("savings", 100F));
+      accounts.add(account("salaried", 2500F));
+      UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + i + "@g.com");
+      userDto.setAccount(accounts);
+      userDtos.add(userDto);
+    }
+    context.getBean(UserService.class).saveUsers(userDtos);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeContext() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<UserDto> readWriteTransaction() {
+    return readWrite.execute(status -> readUsers());
+  }
+
+  @Benchmark
+  public List<UserDto> readOnlyTransaction() {
+    return readOnly.execute(status -> readUsers());
+  }
+
+  private List<UserDto> readUsers() {
+    return userMapper.toDtos(userRepository.findAll(PageRequest.of(0, users, Sort.by("userId"))).getContent());
+  }
+
+  private static AccountDto account(String accountType, Float balance) {
+    AccountDto accountDto = new AccountDto();
+    accountDto.setAccountType(accountType);
+    accountDto.setBalance(balance);
+    return accountDto;
+  }
+}
@@ -0,0 +1,97 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion behind the read endpoints and the payload to account conversion behind
+ * {@code saveUser}/{@code updateUser}, without any database access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Users {
+
+    @Param({"1", "100", "10000"})
+    int users;
+
+    List<User> userList;
+
+    @Setup
+    public void setUp() {
+      userList = new ArrayList<>(users);
+      for (int i = 0; i < users; i++) {
+        userList.add(user(i + 1));
+      }
+    }
+  }
+
+  private UserService userService;
+
+  private UserDto userDto;
+
+  private User existingUser;
+
+  @Setup
+  public void setUp() {
+    userService = new UserService();
+    userService.userMapper = new UserMapper();
+
+    existingUser = user(1);
+    userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    List<AccountDto> accountDtos = new ArrayList<>();
+    for (long accountId = 1; accountId <= 3; accountId++) {
+      AccountDto accountDto = new AccountDto();
+      accountDto.setAccountId(accountId);
+      accountDto.setAccountType("savings");
+      accountDto.setBalance(500F);
+      accountDtos.add(accountDto);
+    }
+    userDto.setAccount(accountDtos);
+  }
+
+  @Benchmark
+  public List<UserDto> convertEntityToDto(Users users) {
+    return userService.userMapper.toDtos(users.userList);
+  }
+
+  @Benchmark
+  public List<Account> getAccounts() {
+    return userService.getAccounts(userDto, existingUser);
+  }
+
+  private static User user(long userId) {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan" + userId + "@g.com");
+    user.setUserId(userId);
+    List<Account> accounts = new ArrayList<>();
+    accounts.add(new Account(100F, "savings", user));
+    accounts.add(new Account(2500F, "salaried", user));
+    accounts.get(0).setAccountId(2 * userId - 1);
+    accounts.get(1).setAccountId(2 * userId);
+    user.setAccounts(accounts);
+    return user;
+  }
+}
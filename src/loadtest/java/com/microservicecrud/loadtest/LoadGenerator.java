@@ -0,0 +1,171 @@
+package com.microservicecrud.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator. Requests are scheduled at a fixed rate and handed to a pool of client threads;
+ * a slow response does not delay the next request, and each latency is measured from the scheduled time.
+ * That keeps queueing delay in the numbers instead of hiding it the way a closed loop of waiting clients does.
+ */
+class LoadGenerator {
+
+  private final String baseUrl;
+
+  private final List<Long> userIds;
+
+  private final Queue<Long> deletableUserIds;
+
+  private final Operation[] operations;
+
+  private final int[] cumulativeWeights;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final AtomicLong sequence;
+
+  /**
+   * Users created by the run are numbered from {@code firstUserNumber}, which must be above the seeded ones
+   * because email ids are unique.
+   */
+  LoadGenerator(String baseUrl, List<Long> userIds, Queue<Long> deletableUserIds, Map<Operation, Integer> mix, long firstUserNumber) {
+    this.baseUrl = baseUrl;
+    this.sequence = new AtomicLong(firstUserNumber);
+    this.userIds = userIds;
+    this.deletableUserIds = deletableUserIds;
+    this.operations = mix.keySet().toArray(new Operation[0]);
+    this.cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += mix.get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  /**
+   * Sends {@code rate} requests per second for the warmup and then the measured period, recording only the
+   * requests scheduled in the measured period. Returns once every sent request has completed.
+   */
+  void run(LoadReport report, int rate, int warmupSeconds, int durationSeconds, int threads) throws InterruptedException, IOException {
+    PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+    connections.setMaxTotal(threads);
+    connections.setDefaultMaxPerRoute(threads);
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    Random random = new Random();
+
+    try (CloseableHttpClient client = HttpClients.custom().setConnectionManager(connections).build()) {
+      long period = TimeUnit.SECONDS.toNanos(1) / rate;
+      long start = System.nanoTime();
+      long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+      long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+      for (long scheduled = start; scheduled < end; scheduled += period) {
+        long wait;
+        while ((wait = scheduled - System.nanoTime()) > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        Operation operation = nextOperation(random);
+        HttpUriRequest request = newRequest(operation, random);
+        boolean measured = scheduled >= measureFrom;
+        long scheduledAt = scheduled;
+        workers.execute(() -> {
+          boolean failed = !send(client, request);
+          if (measured) {
+            report.record(operation, System.nanoTime() - scheduledAt, failed);
+          }
+        });
+      }
+      workers.shutdown();
+      workers.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  private Operation nextOperation(Random random) {
+    int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  private HttpUriRequest newRequest(Operation operation, Random random) {
+    Long userId = userIds.get(random.nextInt(userIds.size()));
+    long n = sequence.getAndIncrement();
+    switch (operation) {
+      case GET_BY_ID:
+        return new HttpGet(baseUrl + "/api/users/" + userId);
+      case LIST:
+        return new HttpGet(baseUrl + "/api/users?after=" + userId);
+      case POST:
+        return withBody(new HttpPost(baseUrl + "/api/users"), newUser(n, 1));
+      case PUT:
+        return withBody(new HttpPut(baseUrl + "/api/users/" + userId), Collections.singletonMap("address", "Pune " + n));
+      case PATCH:
+        return withBody(new HttpPatch(baseUrl + "/api/users/" + userId), Collections.singletonMap("lastName", "shaha " + n));
+      default:
+        Long deletableUserId = deletableUserIds.poll();
+        return new HttpDelete(baseUrl + "/api/users/" + (deletableUserId != null ? deletableUserId : userId));
+    }
+  }
+
+  private HttpUriRequest withBody(HttpEntityEnclosingRequestBase request, Object body) {
+    try {
+      request.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return request;
+  }
+
+  private static boolean send(CloseableHttpClient client, HttpUriRequest request) {
+    try (CloseableHttpResponse response = client.execute(request)) {
+      EntityUtils.consume(response.getEntity());
+      return response.getStatusLine().getStatusCode() < 400;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  static UserDto newUser(long n, int accounts) {
+    List<AccountDto> accountDtos = new ArrayList<>(accounts);
+    for (int i = 0; i < accounts; i++) {
+      AccountDto accountDto = new AccountDto();
+      accountDto.setAccountType(i % 2 == 0 ? "savings" : "salaried");
+      accountDto.setBalance(100F);
+      accountDtos.add(accountDto);
+    }
+
+    UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + n + "@g.com");
+    userDto.setAccount(accountDtos);
+    return userDto;
+  }
+}
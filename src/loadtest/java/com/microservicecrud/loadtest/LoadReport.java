@@ -0,0 +1,92 @@
+package com.microservicecrud.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histogram and error count per operation. Latencies are recorded in nanoseconds from the time the
+ * request was scheduled, so time spent waiting for a free client thread is part of the result.
+ */
+class LoadReport {
+
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+  LoadReport() {
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new ConcurrentHistogram(3));
+      errors.put(operation, new AtomicLong());
+    }
+  }
+
+  void record(Operation operation, long latencyNanos, boolean failed) {
+    latencies.get(operation).recordValue(latencyNanos);
+    if (failed) {
+      errors.get(operation).incrementAndGet();
+    }
+  }
+
+  /**
+   * Names the operations whose p99 is above the limit, or returns an empty string when all are within it.
+   */
+  String p99Violations(long maxP99Millis) {
+    StringBuilder violations = new StringBuilder();
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = latencies.get(operation);
+      if (histogram.getTotalCount() > 0 && histogram.getValueAtPercentile(99) / NANOS_PER_MILLI > maxP99Millis) {
+        violations.append(operation.getEndpoint()).append(' ');
+      }
+    }
+    return violations.toString().trim();
+  }
+
+  String format(double durationSeconds, int targetRate) {
+    StringWriter text = new StringWriter();
+    PrintWriter out = new PrintWriter(text);
+    out.printf("target rate %d req/s, measured for %.1f s%n", targetRate, durationSeconds);
+    out.printf("%-24s %9s %7s %9s %9s %9s %9s %9s%n",
+      "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+    Histogram total = new Histogram(3);
+    long totalErrors = 0;
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = latencies.get(operation);
+      long operationErrors = errors.get(operation).get();
+      total.add(histogram);
+      totalErrors += operationErrors;
+      formatRow(out, operation.getEndpoint(), histogram, operationErrors, durationSeconds);
+    }
+    formatRow(out, "total", total, totalErrors, durationSeconds);
+    out.flush();
+    return text.toString();
+  }
+
+  void write(String report, Path file) throws IOException {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    Files.write(file, report.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void formatRow(PrintWriter out, String name, Histogram histogram, long errors, double durationSeconds) {
+    out.printf("%-24s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+      histogram.getTotalCount() / durationSeconds,
+      histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+      histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+      histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+      histogram.getMaxValue() / NANOS_PER_MILLI);
+  }
+}
@@ -0,0 +1,96 @@
+package com.microservicecrud.loadtest;
+
+import com.microservicecrud.MicroserviceCrudApplication;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.service.UserService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Boots the service with the {@code loadtest} profile on an in-memory H2 database, seeds users through
+ * {@link UserService#saveUsers}, drives the mixed workload over HTTP and prints the latency report.
+ * Settings are the {@code loadtest.*} properties of application-loadtest.properties. The process exits
+ * with 1 when {@code loadtest.max-p99-millis} is set and an endpoint is slower.
+ */
+public class LoadTestApplication {
+
+  private static final int SEED_CHUNK = 1000;
+
+  public static void main(String[] args) throws Exception {
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(MicroserviceCrudApplication.class)
+      .profiles("loadtest")
+      .run(args);
+
+    int exitCode = 0;
+    try {
+      Environment env = context.getEnvironment();
+      int rate = env.getRequiredProperty("loadtest.rate", Integer.class);
+      int warmupSeconds = env.getRequiredProperty("loadtest.warmup-seconds", Integer.class);
+      int durationSeconds = env.getRequiredProperty("loadtest.duration-seconds", Integer.class);
+      int accountsPerUser = env.getRequiredProperty("loadtest.accounts-per-user", Integer.class);
+
+      Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+      int totalWeight = 0;
+      for (Operation operation : Operation.values()) {
+        int weight = env.getRequiredProperty(operation.getMixProperty(), Integer.class);
+        if (weight > 0) {
+          mix.put(operation, weight);
+          totalWeight += weight;
+        }
+      }
+
+      // users deleted during the run are seeded separately, so the other requests always find their user
+      long deletes = (long) rate * (warmupSeconds + durationSeconds) * mix.getOrDefault(Operation.DELETE, 0) / totalWeight;
+      UserService userService = context.getBean(UserService.class);
+      int users = env.getRequiredProperty("loadtest.users", Integer.class);
+      int deletableUsers = (int) deletes + rate;
+      List<Long> userIds = seed(userService, 0, users, accountsPerUser);
+      Queue<Long> deletableUserIds = new ConcurrentLinkedQueue<>(seed(userService, users, deletableUsers, accountsPerUser));
+
+      String baseUrl = "http://localhost:" + env.getRequiredProperty("local.server.port");
+      LoadReport report = new LoadReport();
+      new LoadGenerator(baseUrl, userIds, deletableUserIds, mix, users + deletableUsers)
+        .run(report, rate, warmupSeconds, durationSeconds, env.getRequiredProperty("loadtest.threads", Integer.class));
+
+      String text = report.format(durationSeconds, rate);
+      System.out.print(text);
+      String reportFile = env.getProperty("loadtest.report");
+      if (reportFile != null && !reportFile.isEmpty()) {
+        report.write(text, Paths.get(reportFile));
+      }
+
+      long maxP99Millis = env.getRequiredProperty("loadtest.max-p99-millis", Long.class);
+      if (maxP99Millis > 0) {
+        String violations = report.p99Violations(maxP99Millis);
+        if (!violations.isEmpty()) {
+          System.out.println("p99 above " + maxP99Millis + " ms: " + violations);
+          exitCode = 1;
+        }
+      }
+    } finally {
+      context.close();
+    }
+    System.exit(exitCode);
+  }
+
+  private static List<Long> seed(UserService userService, int firstUserNumber, int users, int accountsPerUser) {
+    List<Long> userIds = new ArrayList<>(users);
+    List<UserDto> chunk = new ArrayList<>(SEED_CHUNK);
+    for (int i = 0; i < users; i++) {
+      chunk.add(LoadGenerator.newUser(firstUserNumber + i, accountsPerUser));
+      if (chunk.size() == SEED_CHUNK || i == users - 1) {
+        userIds.addAll(userService.saveUsers(chunk));
+        chunk.clear();
+      }
+    }
+    return userIds;
+  }
+}
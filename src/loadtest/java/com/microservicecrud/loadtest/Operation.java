@@ -0,0 +1,31 @@
+package com.microservicecrud.loadtest;
+
+/**
+ * Requests of the mixed workload, each with the property holding its share of the mix.
+ */
+enum Operation {
+
+  GET_BY_ID("GET /api/users/{id}", "get-by-id"),
+  LIST("GET /api/users", "list"),
+  POST("POST /api/users", "post"),
+  PUT("PUT /api/users/{id}", "put"),
+  PATCH("PATCH /api/users/{id}", "patch"),
+  DELETE("DELETE /api/users/{id}", "delete");
+
+  private final String endpoint;
+
+  private final String mixKey;
+
+  Operation(String endpoint, String mixKey) {
+    this.endpoint = endpoint;
+    this.mixKey = mixKey;
+  }
+
+  String getEndpoint() {
+    return endpoint;
+  }
+
+  String getMixProperty() {
+    return "loadtest.mix." + mixKey;
+  }
+}
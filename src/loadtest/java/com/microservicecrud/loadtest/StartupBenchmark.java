@@ -0,0 +1,167 @@
+package com.microservicecrud.loadtest;
+
+import com.microservicecrud.MicroserviceCrudApplication;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the service in a new JVM per run, on the in-memory database of the {@code loadtest} profile, and
+ * measures the time from launching the process to the first successful GET /api/users, for the default
+ * configuration, the {@code faststart} profile and, once {@code ./gradlew appCdsArchive} built the archive, the
+ * {@code faststart} profile with class data sharing. Settings are the {@code startup.*} system properties passed
+ * by {@code ./gradlew startupBenchmark}.
+ */
+public class StartupBenchmark {
+
+  private static final long POLL_INTERVAL_MILLIS = 10;
+
+  public static void main(String[] args) throws Exception {
+    int runs = Integer.getInteger("startup.runs", 5);
+    long timeoutNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("startup.timeout-seconds", 180));
+    String classpath = System.getProperty("startup.classpath", System.getProperty("java.class.path"));
+    Path reportFile = Paths.get(System.getProperty("startup.report", "build/reports/startup/report.txt"));
+    Files.createDirectories(reportFile.getParent());
+
+    List<Configuration> configurations = new ArrayList<>();
+    configurations.add(new Configuration("default", "loadtest", classpath, Collections.emptyList()));
+    configurations.add(new Configuration("faststart", "loadtest,faststart", classpath, Collections.emptyList()));
+    Path archive = Paths.get(System.getProperty("startup.appcds-archive", "build/appcds/app.jsa"));
+    Path archiveClasspath = Paths.get(System.getProperty("startup.appcds-classpath", "build/appcds/classpath.txt"));
+    if (Files.exists(archive) && Files.exists(archiveClasspath)) {
+      // the archived jars have to come first and unchanged, the database driver and profile follow them
+      String archivedClasspath = new String(Files.readAllBytes(archiveClasspath), StandardCharsets.UTF_8).trim();
+      configurations.add(new Configuration("faststart+appcds", "loadtest,faststart",
+        archivedClasspath + File.pathSeparator + classpath,
+        Collections.singletonList("-XX:SharedArchiveFile=" + archive.toAbsolutePath())));
+    } else {
+      System.out.println("no class data sharing archive at " + archive + ", run ./gradlew appCdsArchive to include it");
+    }
+
+    for (Configuration configuration : configurations) {
+      Path log = reportFile.resolveSibling(configuration.name + ".log");
+      Files.deleteIfExists(log);
+      for (int run = 0; run < runs; run++) {
+        long millis = timeToFirstRequest(configuration, log, timeoutNanos);
+        configuration.millis.add(millis);
+        System.out.printf("%-18s run %d: %d ms%n", configuration.name, run + 1, millis);
+      }
+    }
+
+    String text = format(configurations, runs);
+    System.out.print(text);
+    Files.write(reportFile, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Launches the service and polls it until it answers; the process is stopped again before returning.
+   */
+  private static long timeToFirstRequest(Configuration configuration, Path log, long timeoutNanos)
+    throws IOException, InterruptedException {
+    int port = freePort();
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(configuration.jvmArgs);
+    command.addAll(Arrays.asList("-cp", configuration.classpath, MicroserviceCrudApplication.class.getName(),
+      "--spring.profiles.active=" + configuration.profiles, "--server.port=" + port));
+    URL url = new URL("http://localhost:" + port + "/api/users?limit=1");
+
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(command).redirectErrorStream(true)
+      .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile())).start();
+    try {
+      while (System.nanoTime() - start < timeoutNanos) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException(configuration.name + " exited with " + process.exitValue() + ", see " + log);
+        }
+        if (answers(url)) {
+          return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+      }
+      throw new IllegalStateException(configuration.name + " did not answer in time, see " + log);
+    } finally {
+      process.destroy();
+      if (!process.waitFor(30, TimeUnit.SECONDS)) {
+        process.destroyForcibly().waitFor();
+      }
+    }
+  }
+
+  private static boolean answers(URL url) {
+    HttpURLConnection connection = null;
+    try {
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setConnectTimeout(500);
+      connection.setReadTimeout(30000);
+      try (InputStream in = connection.getInputStream()) {
+        while (in.read() != -1) {
+          // drain the body
+        }
+      }
+      return connection.getResponseCode() == 200;
+    } catch (IOException e) {
+      // not listening yet, or not ready to serve
+      return false;
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static String format(List<Configuration> configurations, int runs) {
+    StringWriter text = new StringWriter();
+    PrintWriter out = new PrintWriter(text);
+    out.printf("time to first successful request over %d runs%n", runs);
+    out.printf("%-18s %9s %9s %9s%n", "configuration", "min ms", "median ms", "max ms");
+    for (Configuration configuration : configurations) {
+      List<Long> millis = new ArrayList<>(configuration.millis);
+      Collections.sort(millis);
+      out.printf("%-18s %9d %9d %9d%n", configuration.name, millis.get(0), millis.get(millis.size() / 2),
+        millis.get(millis.size() - 1));
+    }
+    out.flush();
+    return text.toString();
+  }
+
+  private static class Configuration {
+
+    final String name;
+
+    final String profiles;
+
+    final String classpath;
+
+    final List<String> jvmArgs;
+
+    final List<Long> millis = new ArrayList<>();
+
+    Configuration(String name, String profiles, String classpath, List<String> jvmArgs) {
+      this.name = name;
+      this.profiles = profiles;
+      this.classpath = classpath;
+      this.jvmArgs = jvmArgs;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.microservicecrud.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import java.util.Arrays;
+
+/**
+ * Enables the Caffeine caches configured under {@code user.cache.*}. The caching advice is ordered just
+ * outside the transaction advice, so cache hits do not open a transaction and evictions happen after the
+ * write has committed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+  public static final String USERS_CACHE = "users";
+
+  public static final String ACCOUNT_STATS_CACHE = "accountStats";
+
+  /**
+   * Builds every cache from its own Caffeine spec, so the short-lived account stats do not share the size
+   * and expiry of the converted users. The users cache holds copies of the mutable DTOs and hands out copies.
+   */
+  @Bean
+  public CacheManager cacheManager(@Value("${user.cache.users.spec}") String usersSpec,
+                                   @Value("${user.cache.account-stats.spec}") String accountStatsSpec) {
+    SimpleCacheManager cacheManager = new SimpleCacheManager();
+    cacheManager.setCaches(Arrays.asList(
+      new CopyingCache<>(new CaffeineCache(USERS_CACHE, Caffeine.from(usersSpec).build()), UserDto.class,
+        UserMapper::copy),
+      new CaffeineCache(ACCOUNT_STATS_CACHE, Caffeine.from(accountStatsSpec).build())));
+    return cacheManager;
+  }
+}
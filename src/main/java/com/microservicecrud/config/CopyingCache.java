@@ -0,0 +1,88 @@
+package com.microservicecrud.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache of mutable values that stores a copy of every value put into it and hands out a fresh copy on every
+ * read, so a caller changing its result changes neither the cached entry nor the result of another caller.
+ */
+class CopyingCache<V> implements Cache {
+
+  private final Cache delegate;
+
+  private final Class<V> valueType;
+
+  private final UnaryOperator<V> copier;
+
+  CopyingCache(Cache delegate, Class<V> valueType, UnaryOperator<V> copier) {
+    this.delegate = delegate;
+    this.valueType = valueType;
+    this.copier = copier;
+  }
+
+  @Override
+  public String getName() {
+    return delegate.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return delegate.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    ValueWrapper wrapper = delegate.get(key);
+    return wrapper != null ? new SimpleValueWrapper(copy(wrapper.get())) : null;
+  }
+
+  @Override
+  public <T> T get(Object key, Class<T> type) {
+    ValueWrapper wrapper = get(key);
+    return wrapper != null ? type.cast(wrapper.get()) : null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    return (T) copy(delegate.get(key, () -> copy(valueLoader.call())));
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    delegate.put(key, copy(value));
+  }
+
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    ValueWrapper existing = delegate.putIfAbsent(key, copy(value));
+    return existing != null ? new SimpleValueWrapper(copy(existing.get())) : null;
+  }
+
+  @Override
+  public void evict(Object key) {
+    delegate.evict(key);
+  }
+
+  @Override
+  public boolean evictIfPresent(Object key) {
+    return delegate.evictIfPresent(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public boolean invalidate() {
+    return delegate.invalidate();
+  }
+
+  private Object copy(Object value) {
+    return valueType.isInstance(value) ? copier.apply(valueType.cast(value)) : value;
+  }
+}
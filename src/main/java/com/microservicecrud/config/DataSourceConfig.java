@@ -0,0 +1,56 @@
+package com.microservicecrud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import java.time.Duration;
+import javax.sql.DataSource;
+
+/**
+ * Splits reads from writes once a replica is configured under {@code spring.datasource.replica.*}.
+ * Read-only transactions run on the replica pool, everything else, including Flyway, on the primary pool
+ * built from the usual {@code spring.datasource.*} properties. Without a replica url this configuration
+ * stays off and Boot's single data source is used.
+ */
+@Configuration
+@ConditionalOnProperty("spring.datasource.replica.jdbc-url")
+public class DataSourceConfig {
+
+  @Bean
+  @FlywayDataSource
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.replica")
+  public HikariDataSource replicaDataSource() {
+    HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+    dataSource.setPoolName(ReplicaRoutingDataSource.REPLICA);
+    return dataSource;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                               @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                               @Value("${user.datasource.replica-retry-interval:30s}") Duration retryInterval) {
+    return routingDataSource(primaryDataSource, replicaDataSource, retryInterval);
+  }
+
+  static DataSource routingDataSource(DataSource primary, DataSource replica, Duration retryInterval) {
+    return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, retryInterval));
+  }
+}
@@ -0,0 +1,92 @@
+package com.microservicecrud.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Creates the JCache regions of the Hibernate second-level and query cache from {@code user.hibernate-cache.*}
+ * and hands them to Hibernate. The switches that turn the caches on are in application.properties; a region
+ * that is not configured here fails the startup instead of being created unbounded.
+ */
+@Configuration
+@EnableConfigurationProperties(HibernateCacheProperties.class)
+public class HibernateCacheConfig {
+
+  public static final String USER_REGION = "user";
+
+  public static final String ACCOUNT_REGION = "account";
+
+  public static final String USER_ACCOUNTS_REGION = "user-accounts";
+
+  /**
+   * Every application context gets a cache manager of its own, so contexts in the same JVM never see each
+   * other's entities. Entries are stored by reference, Hibernate only puts immutable disassembled state in there.
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(HibernateCacheProperties properties) {
+    CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+      .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+    for (Map.Entry<String, HibernateCacheProperties.Region> entry : properties.getRegions().entrySet()) {
+      HibernateCacheProperties.Region region = entry.getValue();
+      CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+      configuration.setStoreByValue(false);
+      configuration.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+      if (region.getTimeToLive() != null) {
+        configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+      }
+      cacheManager.createCache(entry.getKey(), configuration);
+    }
+    return cacheManager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+    return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+  }
+
+  /**
+   * Publishes hits, misses and puts of every region under {@code hibernate.second.level.cache.region.*}, the
+   * hibernate.* metrics of Spring Boot only report the totals over all regions.
+   */
+  @Bean
+  public MeterBinder hibernateCacheRegionMetrics(EntityManagerFactory entityManagerFactory) {
+    return registry -> {
+      Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+      for (String region : statistics.getSecondLevelCacheRegionNames()) {
+        regionCounter(statistics, region, "requests", CacheRegionStatistics::getHitCount).tag("result", "hit")
+          .register(registry);
+        regionCounter(statistics, region, "requests", CacheRegionStatistics::getMissCount).tag("result", "miss")
+          .register(registry);
+        regionCounter(statistics, region, "puts", CacheRegionStatistics::getPutCount).register(registry);
+      }
+    };
+  }
+
+  /**
+   * The region statistics are looked up on every read, clearing the statistics replaces them.
+   */
+  private static FunctionCounter.Builder<Statistics> regionCounter(Statistics statistics, String region, String name,
+                                                                   ToLongFunction<CacheRegionStatistics> count) {
+    return FunctionCounter.builder("hibernate.second.level.cache.region." + name, statistics,
+      s -> count.applyAsLong(s.getCacheRegionStatistics(region)))
+      .tag("region", region);
+  }
+}
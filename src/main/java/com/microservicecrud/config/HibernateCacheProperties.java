@@ -0,0 +1,50 @@
+package com.microservicecrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and time-to-live of each Hibernate second-level cache region, bound from
+ * {@code user.hibernate-cache.regions.<region>.*}.
+ */
+@ConfigurationProperties("user.hibernate-cache")
+public class HibernateCacheProperties {
+
+  private Map<String, Region> regions = new LinkedHashMap<>();
+
+  public Map<String, Region> getRegions() {
+    return regions;
+  }
+
+  public void setRegions(Map<String, Region> regions) {
+    this.regions = regions;
+  }
+
+  public static class Region {
+
+    private long maximumSize;
+
+    /**
+     * How long an entry is kept after it was written; null keeps it until it is evicted by size or invalidated.
+     */
+    private Duration timeToLive;
+
+    public long getMaximumSize() {
+      return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+      this.maximumSize = maximumSize;
+    }
+
+    public Duration getTimeToLive() {
+      return timeToLive;
+    }
+
+    public void setTimeToLive(Duration timeToLive) {
+      this.timeToLive = timeToLive;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.microservicecrud.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the aspect behind {@code @Timed} on service methods. Controller handlers are timed by the
+ * actuator request filter, Hibernate statistics and the Hikari pool are bound by actuator auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+  public static final String USER_SERVICE_TIMER = "user.service";
+
+  public static final String ACCOUNT_SERVICE_TIMER = "account.service";
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry registry) {
+    return new TimedAspect(registry);
+  }
+}
@@ -0,0 +1,71 @@
+package com.microservicecrud.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary connections everywhere else.
+ * When the replica cannot supply a connection the read falls back to the primary, and the replica is
+ * skipped for the retry interval so reads do not wait for its connection timeout on every request.
+ * <p>
+ * The transaction is only known to be read-only once it has begun, so this data source has to sit behind
+ * a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  static final String PRIMARY = "primary";
+
+  static final String REPLICA = "replica";
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  private final DataSource primary;
+
+  private final long retryIntervalMillis;
+
+  private volatile long replicaRetryAt;
+
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration retryInterval) {
+    this.primary = primary;
+    this.retryIntervalMillis = retryInterval.toMillis();
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    targets.put(REPLICA, replica);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+      && System.currentTimeMillis() >= replicaRetryAt) {
+      return REPLICA;
+    }
+    return PRIMARY;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    Object key = determineCurrentLookupKey();
+    if (PRIMARY.equals(key)) {
+      return primary.getConnection();
+    }
+    try {
+      return super.getConnection();
+    } catch (SQLException | RuntimeException ex) {
+      // Hikari reports a pool that cannot start with an unchecked exception, a full or broken pool with SQLException
+      replicaRetryAt = System.currentTimeMillis() + retryIntervalMillis;
+      log.warn("Replica unavailable, reading from the primary for the next {} ms: {}", retryIntervalMillis, ex.getMessage());
+      return primary.getConnection();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.microservicecrud.config;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Start-up switches of the faststart profile and the class data sharing archive task of the build.
+ */
+@Configuration
+public class StartupConfig {
+
+  /**
+   * Beans still created at startup when {@code spring.main.lazy-initialization} is set. The entity manager
+   * factory runs the Flyway migrations and, with deferred repository bootstrap, starts Hibernate in the
+   * background; created lazily it would do both within the first request.
+   */
+  static final String[] EAGER_BEANS = {"entityManagerFactory"};
+
+  @Bean
+  @ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+  public static BeanFactoryPostProcessor eagerBeans() {
+    return beanFactory -> {
+      for (String name : EAGER_BEANS) {
+        if (beanFactory.containsBeanDefinition(name)) {
+          beanFactory.getBeanDefinition(name).setLazyInit(false);
+        }
+      }
+    };
+  }
+
+  /**
+   * Closes the application as soon as it started, used by the training run of {@code ./gradlew appCdsArchive}
+   * to record the classes loaded at startup.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "user.startup.exit-after-start", havingValue = "true")
+  public ApplicationRunner exitAfterStart(ConfigurableApplicationContext context) {
+    return args -> System.exit(SpringApplication.exit(context));
+  }
+}
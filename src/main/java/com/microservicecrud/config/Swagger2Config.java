@@ -1,5 +1,6 @@
 package com.microservicecrud.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import springfox.documentation.builders.ApiInfoBuilder;
@@ -11,8 +12,13 @@ import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+/**
+ * Builds the API document from the controllers at runtime. With {@code user.api-docs.static} the document
+ * generated at build time is served by {@link com.microservicecrud.controller.ApiDocsController} instead and springfox is not started.
+ */
 @Configuration
 @EnableSwagger2
+@ConditionalOnProperty(name = "user.api-docs.static", havingValue = "false", matchIfMissing = true)
 public class Swagger2Config {
   @Bean
   public Docket api() {
@@ -0,0 +1,25 @@
+package com.microservicecrud.config;
+
+import com.microservicecrud.service.UserChangeSequencer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Schedules the {@link UserChangeSequencer}; changes only appear in GET /api/users/changes and reach the relay
+ * once it assigned their feed positions.
+ */
+@Configuration
+@EnableScheduling
+public class UserChangeFeedConfig {
+
+  /**
+   * Never lazy, the sequencer is only scheduled once it is created.
+   */
+  @Bean
+  @Lazy(false)
+  public UserChangeSequencer userChangeSequencer() {
+    return new UserChangeSequencer();
+  }
+}
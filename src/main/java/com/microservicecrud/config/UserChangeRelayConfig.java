@@ -0,0 +1,39 @@
+package com.microservicecrud.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservicecrud.service.FileUserChangeSink;
+import com.microservicecrud.service.UserChangeRelay;
+import com.microservicecrud.service.UserChangeSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import java.nio.file.Path;
+
+/**
+ * Schedules the {@link UserChangeRelay} when {@code user.changes.relay.enabled} is set. It publishes to the
+ * {@link UserChangeSink} bean of the application; the file sink is declared here when
+ * {@code user.changes.relay.file} names a file, any other sink is plugged in by declaring a bean of its own.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "user.changes.relay.enabled", havingValue = "true")
+public class UserChangeRelayConfig {
+
+  /**
+   * Never lazy, the relay is only scheduled once it is created.
+   */
+  @Bean
+  @Lazy(false)
+  public UserChangeRelay userChangeRelay() {
+    return new UserChangeRelay();
+  }
+
+  @Bean
+  @ConditionalOnProperty("user.changes.relay.file")
+  public UserChangeSink fileUserChangeSink(@Value("${user.changes.relay.file}") Path file, ObjectMapper objectMapper) {
+    return new FileUserChangeSink(file, objectMapper);
+  }
+}
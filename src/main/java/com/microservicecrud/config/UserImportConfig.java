@@ -0,0 +1,23 @@
+package com.microservicecrud.config;
+
+import com.microservicecrud.service.UserImportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Imports {@code user.import.startup-file} once the application is started. An import of the file that did not
+ * complete is resumed, a completed one is not repeated, so the property can stay set across restarts.
+ */
+@Configuration
+@ConditionalOnProperty("user.import.startup-file")
+public class UserImportConfig {
+
+  @Bean
+  public ApplicationRunner userImportRunner(UserImportService userImportService,
+                                            @Value("${user.import.startup-file}") String file) {
+    return args -> userImportService.importFile(file);
+  }
+}
@@ -0,0 +1,52 @@
+package com.microservicecrud.config;
+
+import com.google.protobuf.Message;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.mapper.UserProtoMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import java.io.IOException;
+
+/**
+ * Writes users and user pages as the protobuf messages of {@code user.proto} for clients that accept
+ * {@code application/x-protobuf}. Request bodies are not read in this format; protobuf cannot tell a
+ * field that was left out from one set to its default, which partial updates depend on.
+ */
+public class UserProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+  public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+  private final UserProtoMapper userProtoMapper;
+
+  public UserProtobufHttpMessageConverter(UserProtoMapper userProtoMapper) {
+    super(APPLICATION_PROTOBUF);
+    this.userProtoMapper = userProtoMapper;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return UserDto.class == clazz || UserPageDto.class == clazz;
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("Protobuf request bodies are not supported.", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+    Message message = body instanceof UserPageDto
+      ? userProtoMapper.toProto((UserPageDto) body)
+      : userProtoMapper.toProto((UserDto) body);
+    message.writeTo(outputMessage.getBody());
+  }
+}
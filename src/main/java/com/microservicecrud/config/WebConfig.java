@@ -0,0 +1,22 @@
+package com.microservicecrud.config;
+
+import com.microservicecrud.mapper.UserProtoMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.util.List;
+
+/**
+ * Binary representations of the user payloads, picked by the Accept header. Spring MVC registers the
+ * Smile ({@code application/x-jackson-smile}) and CBOR ({@code application/cbor}) converters itself because
+ * their Jackson data formats are on the classpath; the protobuf converter is appended here. All of them come
+ * after the JSON converter, so clients that accept anything keep getting JSON.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new UserProtobufHttpMessageConverter(new UserProtoMapper()));
+  }
+}
@@ -0,0 +1,87 @@
+package com.microservicecrud.controller;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.AccountStatsDto;
+import com.microservicecrud.dto.BalanceAdjustmentDto;
+import com.microservicecrud.service.AccountService;
+import com.microservicecrud.service.InsufficientBalanceException;
+import io.micrometer.core.annotation.Timed;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.List;
+
+@Timed(histogram = true)
+@RestController
+@RequestMapping("/api")
+@Api(value = "Accounts", description = "Balance adjustments and aggregated figures over the accounts of users")
+public class AccountController {
+
+  static final String INVALID_USER_ID_RANGE_MESSAGE = "fromUserId must not be greater than toUserId.";
+
+  static final String DELTA_REQUIRED_MESSAGE = "Please pass the amount to add to the balance as 'delta'.";
+
+  @Autowired
+  AccountService accountService;
+
+  @ApiOperation(value = "Balance statistics per account type", response = AccountStatsDto.class, responseContainer = "List",
+    notes = "Count, sum, min, max and average balance of each account type, computed by the database. Results may " +
+      "be a few seconds old.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully computed the statistics"),
+    @ApiResponse(code = 400, message = "The user id range is empty")
+  })
+  @GetMapping("/accounts/stats")
+  public ResponseEntity getAccountStats(
+    @ApiParam(value = "Only accounts of users with this id or greater")
+    @RequestParam(value = "fromUserId", required = false) Long fromUserId,
+    @ApiParam(value = "Only accounts of users with this id or smaller")
+    @RequestParam(value = "toUserId", required = false) Long toUserId) {
+    long from = fromUserId != null ? fromUserId : 0L;
+    long to = toUserId != null ? toUserId : Long.MAX_VALUE;
+    if (from > to) {
+      return ResponseEntity.badRequest().body(INVALID_USER_ID_RANGE_MESSAGE);
+    }
+    List<AccountStatsDto> stats = accountService.findStats(from, to);
+    return ResponseEntity.ok().body(stats);
+  }
+
+  @ApiOperation(value = "Add to or withdraw from the balance of an account", response = AccountDto.class,
+    notes = "The delta is applied by the database in a single statement, so concurrent adjustments of the same " +
+      "account are all counted. With 'nonNegative' the adjustment is refused if it would overdraw the account.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully adjusted the balance"),
+    @ApiResponse(code = 400, message = "No delta was given"),
+    @ApiResponse(code = 409, message = "The balance would drop below zero")
+  })
+  @PostMapping("/accounts/{accountId}/balance-adjustments")
+  public ResponseEntity adjustBalance(
+    @ApiParam(value = "Id of the account to adjust", required = true) @PathVariable Long accountId,
+    @ApiParam(value = "Amount to add and whether the balance must stay non-negative", required = true)
+    @RequestBody BalanceAdjustmentDto adjustment) {
+    if (adjustment.getDelta() == null) {
+      return ResponseEntity.badRequest().body(DELTA_REQUIRED_MESSAGE);
+    }
+    try {
+      AccountDto account = accountService.adjustBalance(accountId, adjustment.getDelta(), adjustment.isNonNegative());
+      if (account != null) {
+        return ResponseEntity.ok().body(account);
+      }
+      return ResponseEntity.ok().body("Account not found for this id ::" + accountId);
+    } catch (InsufficientBalanceException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+  }
+}
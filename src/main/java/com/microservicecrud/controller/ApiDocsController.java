@@ -0,0 +1,44 @@
+package com.microservicecrud.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import springfox.documentation.annotations.ApiIgnore;
+
+/**
+ * Serves the API document generated at build time by {@code ./gradlew generateApiDocs} when
+ * {@code user.api-docs.static} is set, under the paths springfox uses, so swagger-ui.html keeps working without
+ * scanning the controllers at startup.
+ */
+@ApiIgnore
+@RestController
+@ConditionalOnProperty(name = "user.api-docs.static", havingValue = "true")
+public class ApiDocsController {
+
+  static final String API_DOCS_RESOURCE = "api-docs/user-api.json";
+
+  private static final String SWAGGER_RESOURCES =
+    "[{\"name\":\"default\",\"url\":\"/v2/api-docs\",\"location\":\"/v2/api-docs\",\"swaggerVersion\":\"2.0\"}]";
+
+  @GetMapping(value = "/v2/api-docs", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Resource apiDocs() {
+    return new ClassPathResource(API_DOCS_RESOURCE);
+  }
+
+  @GetMapping(value = "/swagger-resources", produces = MediaType.APPLICATION_JSON_VALUE)
+  public String swaggerResources() {
+    return SWAGGER_RESOURCES;
+  }
+
+  /**
+   * swagger-ui reads its settings from here, an empty object keeps its defaults.
+   */
+  @GetMapping(value = {"/swagger-resources/configuration/ui", "/swagger-resources/configuration/security"},
+    produces = MediaType.APPLICATION_JSON_VALUE)
+  public String swaggerConfiguration() {
+    return "{}";
+  }
+}
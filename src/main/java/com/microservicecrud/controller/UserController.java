@@ -1,66 +1,197 @@
 package com.microservicecrud.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserBatchResultDto;
+import com.microservicecrud.dto.UserChangePageDto;
 import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserImportDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.mapper.InvalidPatchException;
 import com.microservicecrud.model.AccountType;
-import com.microservicecrud.model.User;
+import com.microservicecrud.service.EmailAlreadyRegisteredException;
+import com.microservicecrud.service.FileNotImportableException;
+import com.microservicecrud.service.ImportNotResumableException;
+import com.microservicecrud.service.UserImportService;
 import com.microservicecrud.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import java.lang.reflect.Field;
+import org.springframework.web.context.request.WebRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
+@Timed(histogram = true)
 @RestController
 @RequestMapping("/api")
 @Api(value = "User Management System", description = "Operations pertaining to user in user Management System")
 public class UserController {
 
+  static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  static final String INVALID_ACCOUNT_TYPE_MESSAGE =
+    "Please check the account type !! We do only support 'savings' and 'salaried' type of accounts.";
+
+  static final String ACCOUNT_REQUIRED_MESSAGE = "At least one account must be associated with user while creating user.";
+
+  static final String EMAIL_ALREADY_REGISTERED_MESSAGE = "A user with this email id is already registered.";
+
+  static final String USER_IDS_REQUIRED_MESSAGE = "Please pass the ids of the users to delete.";
+
+  static final String SEARCH_CRITERIA_REQUIRED_MESSAGE = "Please pass at least one of emailId, phoneNumber or lastName.";
+
+  static final String EMAIL_ID_CONSTRAINT = "uk_user_email_id";
+
+  static final String VERSION_MISMATCH_MESSAGE =
+    "The user was changed by another request, fetch it again and retry with its current ETag.";
+
   @Autowired
   UserService userService;
 
-  @ApiOperation(value = "View a list of available users", response = List.class)
+  @Autowired
+  UserImportService userImportService;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @ApiOperation(value = "View a page of available users", response = UserPageDto.class,
+    notes = "Users are ordered by id. Pass the returned 'nextCursor' as 'after' to fetch the next page.")
   @ApiResponses(value = {
     @ApiResponse(code = 200, message = "Successfully retrieved list"),
     @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")
   })
 
   @GetMapping("/users")
-  public List<UserDto> getAllUsers() {
-    return userService.findAll();
+  public UserPageDto getAllUsers(
+    @ApiParam(value = "Cursor returned by the previous page, users with a greater id are returned")
+    @RequestParam(value = "after", required = false) Long after,
+    @ApiParam(value = "Maximum number of users in the page (1 - 1000)")
+    @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    return userService.findPage(after, limit);
+  }
+
+  @ApiOperation(value = "Search users by email id, phone number and last name", response = UserPageDto.class,
+    notes = "emailId and phoneNumber match exactly, lastName matches as a prefix; all given criteria must match. " +
+      "Users are ordered by id, pass the returned 'nextCursor' as 'after' to fetch the next page.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully retrieved matching users"),
+    @ApiResponse(code = 400, message = "No search criterion was given")
+  })
+  @GetMapping("/users/search")
+  public ResponseEntity searchUsers(
+    @ApiParam(value = "Email id of the user") @RequestParam(value = "emailId", required = false) String emailId,
+    @ApiParam(value = "Phone number of the user") @RequestParam(value = "phoneNumber", required = false) Long phoneNumber,
+    @ApiParam(value = "Start of the last name of the user") @RequestParam(value = "lastName", required = false) String lastName,
+    @ApiParam(value = "Cursor returned by the previous page, users with a greater id are returned")
+    @RequestParam(value = "after", required = false) Long after,
+    @ApiParam(value = "Maximum number of users in the page (1 - 1000)")
+    @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    if (!StringUtils.hasText(emailId)) {
+      emailId = null;
+    }
+    if (!StringUtils.hasText(lastName)) {
+      lastName = null;
+    }
+    if (emailId == null && phoneNumber == null && lastName == null) {
+      return ResponseEntity.badRequest().body(SEARCH_CRITERIA_REQUIRED_MESSAGE);
+    }
+    return ResponseEntity.ok().body(userService.searchUsers(emailId, phoneNumber, lastName, after, limit));
+  }
+
+  @ApiOperation(value = "View the changes of users after a feed position", response = UserChangePageDto.class,
+    notes = "Changes are ordered by their feed position, assigned shortly after they committed, and carry the current state of the user, null once it was deleted. " +
+      "Pass the returned 'nextSince' as 'since' to fetch the following changes.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully retrieved changes")
+  })
+  @GetMapping("/users/changes")
+  public UserChangePageDto getUserChanges(
+    @ApiParam(value = "'nextSince' of the previous page, 0 to start from the first change")
+    @RequestParam(value = "since", defaultValue = "0") long since,
+    @ApiParam(value = "Maximum number of changes read for the page (1 - 1000)")
+    @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    return userService.findChanges(since, limit);
+  }
+
+  @ApiOperation(value = "Export all users with their accounts as newline-delimited JSON",
+    notes = "The response is streamed, one user per line, while the users are read from the database.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully exported users")
+  })
+  @GetMapping(value = "/users/export", produces = APPLICATION_NDJSON_VALUE)
+  public void exportUsers(HttpServletResponse response) throws IOException {
+    response.setContentType(APPLICATION_NDJSON_VALUE);
+    JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+    generator.setRootValueSeparator(null);
+    ObjectWriter writer = objectMapper.writerFor(UserDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    userService.exportUsers(userDto -> {
+      try {
+        writer.writeValue(generator, userDto);
+        generator.writeRaw('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    generator.flush();
   }
 
-  @ApiOperation(value = "Get an user by Id")
+  @ApiOperation(value = "Get an user by Id", notes = "The response carries the version of the user as ETag. " +
+    "A request whose If-None-Match still matches it is answered with 304 and no body.")
   @ApiResponses(value = {
     @ApiResponse(code = 200, message = "Successfully retrieved user"),
+    @ApiResponse(code = 304, message = "The user did not change since the given ETag"),
     @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")
   })
   @GetMapping("/users/{id}")
   public ResponseEntity getUserById(
     @ApiParam(value = "User id from which user object will retrieve", required = true)
-    @PathVariable(value = "id") Long userId) {
+    @PathVariable(value = "id") Long userId, WebRequest webRequest) {
+    if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+      Long version = userService.findVersion(userId);
+      if (version != null && webRequest.checkNotModified(eTag(version))) {
+        return null;
+      }
+    }
     UserDto user = userService.findUserById(userId);
     if (user != null) {
-      return ResponseEntity.ok().body(user);
+      return ResponseEntity.ok().eTag(eTag(user.getVersion())).body(user);
     }
     return ResponseEntity.ok().body("User not found for this id ::" + userId);
   }
@@ -68,99 +199,185 @@ public class UserController {
   @ApiOperation(value = "Add a user", notes = "Account type we do support is 'savings' and 'salaried' as text.")
   @ApiResponses(value = {
     @ApiResponse(code = 200, message = "Successfully added user"),
-    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")
+    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found"),
+    @ApiResponse(code = 409, message = "The email id was registered by a concurrent request")
   })
 
   @PostMapping("/users")
   public ResponseEntity createUser(
     @ApiParam(value = "User object store in database table", required = true) @Valid @RequestBody UserDto userDto) {
-    List<AccountDto> account = userDto.getAccount();
+    String error = validateNewUser(userDto);
+    if (error != null) {
+      return ResponseEntity.ok().body(error);
+    }
+    if (!userService.findRegisteredEmailIds(Collections.singleton(userDto.getEmailId())).isEmpty()) {
+      return ResponseEntity.ok().body(EMAIL_ALREADY_REGISTERED_MESSAGE);
+    }
 
-    if (!CollectionUtils.isEmpty(account) && account.size() > 0) {
+    UserDto savedUser = userService.saveUser(userDto);
+    return ResponseEntity.ok().body(savedUser);
+  }
 
-      List<AccountDto> allowedAccTypes = account.stream()
-        .filter(acc -> acc.getAccountType().equals(AccountType.SAVINGS.toString()) || acc.getAccountType().equals(AccountType.SALARIED.toString()))
-        .collect(Collectors.toList());
+  @ApiOperation(value = "Add a list of users", notes = "Every user is validated like a single add and an email id " +
+    "may only be used once; valid users are saved in JDBC batches and the result of each item is reported in request order.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully processed the users"),
+    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found"),
+    @ApiResponse(code = 409, message = "An email id was registered by a concurrent request")
+  })
 
-      List<AccountDto> notAllowedAccTypes = account.stream()
-        .filter(acc -> !acc.getAccountType().equals(AccountType.SAVINGS.toString()) && !acc.getAccountType().equals(AccountType.SALARIED.toString()))
-        .collect(Collectors.toList());
+  @PostMapping("/users/batch")
+  public List<UserBatchResultDto> createUsers(
+    @ApiParam(value = "User objects to store in database table", required = true) @Valid @RequestBody List<UserDto> userDtos) {
+    List<UserBatchResultDto> results = new ArrayList<>(userDtos.size());
+    List<UserDto> validUsers = new ArrayList<>();
+    List<UserBatchResultDto> createdResults = new ArrayList<>();
 
-      if (!CollectionUtils.isEmpty(notAllowedAccTypes) && notAllowedAccTypes.size() > 0) {
-        return ResponseEntity.ok().body("Please check the account type !! We do only support 'savings' and 'salaried' type of accounts.");
+    Set<String> emailIds = new HashSet<>();
+    for (UserDto userDto : userDtos) {
+      emailIds.add(userDto.getEmailId());
+    }
+    emailIds.remove(null);
+    Set<String> takenEmailIds = new HashSet<>(userService.findRegisteredEmailIds(emailIds));
+
+    for (int i = 0; i < userDtos.size(); i++) {
+      UserDto userDto = userDtos.get(i);
+      String error = validateNewUser(userDto);
+      if (error == null && userDto.getEmailId() != null && !takenEmailIds.add(userDto.getEmailId())) {
+        error = EMAIL_ALREADY_REGISTERED_MESSAGE;
+      }
+      if (error != null) {
+        results.add(new UserBatchResultDto(i, UserBatchResultDto.Status.REJECTED, null, error));
+      } else {
+        UserBatchResultDto result = new UserBatchResultDto(i, UserBatchResultDto.Status.CREATED, null, null);
+        validUsers.add(userDto);
+        createdResults.add(result);
+        results.add(result);
       }
+    }
 
-      if (!CollectionUtils.isEmpty(allowedAccTypes) && allowedAccTypes.size() > 0) {
-        userDto.setAccount(allowedAccTypes);
+    if (!validUsers.isEmpty()) {
+      List<Long> userIds = userService.saveUsers(validUsers);
+      for (int i = 0; i < userIds.size(); i++) {
+        createdResults.get(i).setUserId(userIds.get(i));
       }
+    }
+    return results;
+  }
+
+  @ApiOperation(value = "Import users with their accounts from a file", response = UserImportDto.class,
+    notes = "The file is read from the import directory of the server, .csv files with a header row and one row per " +
+      "account, .ndjson/.jsonl files with one user per line. The import runs in the background, poll it by its id.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully started the import"),
+    @ApiResponse(code = 400, message = "The file does not exist or has an unsupported format")
+  })
+  @PostMapping("/users/imports")
+  public ResponseEntity startUserImport(
+    @ApiParam(value = "Name of the file in the import directory", required = true) @RequestParam("file") String file) {
+    try {
+      return ResponseEntity.ok().body(userImportService.startImport(file));
+    } catch (FileNotImportableException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @ApiOperation(value = "View the progress of an import", response = UserImportDto.class,
+    notes = "Committed chunks and imported and rejected users are counted over all runs of the import.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully retrieved the import")
+  })
+  @GetMapping("/users/imports/{importId}")
+  public ResponseEntity getUserImport(
+    @ApiParam(value = "Id of the import", required = true) @PathVariable long importId) {
+    UserImportDto userImport = userImportService.findImport(importId);
+    if (userImport != null) {
+      return ResponseEntity.ok().body(userImport);
+    }
+    return ResponseEntity.ok().body("Import not found for this id ::" + importId);
+  }
 
-      UserDto savedUser = userService.saveUser(userDto);
-      return ResponseEntity.ok().body(savedUser);
+  @ApiOperation(value = "Resume an import", response = UserImportDto.class,
+    notes = "The file is read again and the chunks that were committed before are skipped.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully resumed the import"),
+    @ApiResponse(code = 409, message = "The import is completed or still running")
+  })
+  @PostMapping("/users/imports/{importId}/resume")
+  public ResponseEntity resumeUserImport(
+    @ApiParam(value = "Id of the import", required = true) @PathVariable long importId) {
+    try {
+      UserImportDto userImport = userImportService.resumeImport(importId);
+      if (userImport != null) {
+        return ResponseEntity.ok().body(userImport);
+      }
+      return ResponseEntity.ok().body("Import not found for this id ::" + importId);
+    } catch (ImportNotResumableException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     }
-    return ResponseEntity.ok().body("At least one account must be associated with user while creating user.");
   }
 
-  @ApiOperation(value = "Update a user", notes = "Account type we do support is 'savings' and 'salaried' as text.")
+  @ApiOperation(value = "Update a user", notes = "Account type we do support is 'savings' and 'salaried' as text. " +
+    "Pass the ETag of the user as If-Match to update it only if nobody changed it in the meantime.")
   @ApiResponses(value = {
     @ApiResponse(code = 200, message = "Successfully updated user"),
-    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")
+    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found"),
+    @ApiResponse(code = 409, message = "The user was changed concurrently or the email id belongs to another user"),
+    @ApiResponse(code = 412, message = "The user no longer matches the If-Match ETag")
   })
 
   @PutMapping("/users/{id}")
   public ResponseEntity updateUser(
     @ApiParam(value = "Id of the user to update", required = true) @PathVariable Long id,
-    @ApiParam(value = "User object store in database table", required = true) @Valid @RequestBody UserDto userDto) {
-    List<AccountDto> account = userDto.getAccount();
-
-    if (!CollectionUtils.isEmpty(account) && account.size() > 0) {
-      List<AccountDto> allowedAccTypes = account.stream()
-        .filter(acc -> acc.getAccountType().equals(AccountType.SAVINGS.toString()) || acc.getAccountType().equals(AccountType.SALARIED.toString()))
-        .collect(Collectors.toList());
-
-      List<AccountDto> notAllowedAccTypes = account.stream()
-        .filter(acc -> !acc.getAccountType().equals(AccountType.SAVINGS.toString()) && !acc.getAccountType().equals(AccountType.SALARIED.toString()))
-        .collect(Collectors.toList());
-
-      if (!CollectionUtils.isEmpty(notAllowedAccTypes) && notAllowedAccTypes.size() > 0) {
-        return ResponseEntity.ok().body("Please check the account type !! We do only support 'savings' and 'salaried' type of accounts.");
-      }
-
-      if (!CollectionUtils.isEmpty(allowedAccTypes) && allowedAccTypes.size() > 0) {
-        userDto.setAccount(allowedAccTypes);
-      }
+    @ApiParam(value = "User object store in database table", required = true) @Valid @RequestBody UserDto userDto,
+    @ApiParam(value = "ETag of the user the update is based on") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    if (!hasOnlyAllowedAccountTypes(userDto.getAccount())) {
+      return ResponseEntity.ok().body(INVALID_ACCOUNT_TYPE_MESSAGE);
     }
 
-    UserDto savedUser = userService.updateUser(userDto, id);
-    if (savedUser != null) {
-      return ResponseEntity.ok().body(savedUser);
+    try {
+      UserDto savedUser = userService.updateUser(userDto, id, expectedVersion(ifMatch));
+      if (savedUser != null) {
+        return ResponseEntity.ok().eTag(eTag(savedUser.getVersion())).body(savedUser);
+      }
+      return ResponseEntity.ok().body("The given user for updation was not found !!" + id);
+    } catch (EmailAlreadyRegisteredException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(EMAIL_ALREADY_REGISTERED_MESSAGE);
+    } catch (OptimisticLockingFailureException e) {
+      return versionMismatch(ifMatch);
     }
-    return ResponseEntity.ok().body("The given user for updation was not found !!" + id);
   }
 
-  @ApiOperation(value = "Partial Update a user")
+  @ApiOperation(value = "Partial Update a user", notes = "Patchable fields are firstName, lastName, phoneNumber, address, " +
+    "emailId and 'account', a list of {accountId, balance, accountType} objects for accounts of the user. " +
+    "Pass the ETag of the user as If-Match to patch it only if nobody changed it in the meantime.")
   @ApiResponses(value = {
     @ApiResponse(code = 200, message = "Successfully updated user"),
-    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")
+    @ApiResponse(code = 400, message = "The body contains a field or value that cannot be patched"),
+    @ApiResponse(code = 404, message = "The resource you were trying to reach is not found"),
+    @ApiResponse(code = 409, message = "The user was changed concurrently or the email id belongs to another user"),
+    @ApiResponse(code = 412, message = "The user no longer matches the If-Match ETag")
   })
 
   @PatchMapping("/users/{id}")
   public ResponseEntity patchUser(
-    @ApiParam(value = "Field that are updated  and to be stored in database table", required = true) @Valid @RequestBody Map<Object, Object> fields,
-    @ApiParam(value = "Id of the user to update", required = true) @PathVariable Long id
+    @ApiParam(value = "Field that are updated  and to be stored in database table", required = true) @Valid @RequestBody Map<String, Object> fields,
+    @ApiParam(value = "Id of the user to update", required = true) @PathVariable Long id,
+    @ApiParam(value = "ETag of the user the patch is based on") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
   ) {
-    UserDto savedUser = userService.findUserById(id);
-
-    if (savedUser != null) {
-
-      fields.forEach((k, v) -> {
-        Field field = ReflectionUtils.findField(UserDto.class, (String) k);
-        field.setAccessible(true);
-        ReflectionUtils.setField(field, savedUser, v);
-      });
-      User user = userService.updateUserPartially(savedUser);
-      return ResponseEntity.ok().body(user);
+    try {
+      UserDto savedUser = userService.patchUser(id, fields, expectedVersion(ifMatch));
+      if (savedUser != null) {
+        return ResponseEntity.ok().eTag(eTag(savedUser.getVersion())).body(savedUser);
+      }
+      return ResponseEntity.ok().body("The given user for updation was not found !!" + id);
+    } catch (InvalidPatchException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (EmailAlreadyRegisteredException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(EMAIL_ALREADY_REGISTERED_MESSAGE);
+    } catch (OptimisticLockingFailureException e) {
+      return versionMismatch(ifMatch);
     }
-    return ResponseEntity.ok().body("The given user for updation was not found !!" + id);
   }
 
   @ApiOperation(value = "Delete a user")
@@ -172,33 +389,96 @@ public class UserController {
   @DeleteMapping("/users/{id}")
   public ResponseEntity deleteUser(@ApiParam(value = "User Id by which user will be deleted", required = true)
   @PathVariable(value = "id") Long userId) {
-    try {
-      userService.deleteUser(userId);
+    if (userService.deleteUser(userId)) {
       return ResponseEntity.ok().body("User with id " + userId + " deleted successfully.");
-    } catch (EmptyResultDataAccessException e) {
-      return ResponseEntity.ok().body("User you are trying to delete does not exist !");
     }
+    return ResponseEntity.ok().body("User you are trying to delete does not exist !");
   }
 
-  /*private boolean validateAccType(List<AccountDto> account, List<AccountDto> allowedAccTypes, List<AccountDto> notAllowedAccTypes) {
+  @ApiOperation(value = "Delete a list of users", notes = "Users and their accounts are deleted with set-based " +
+    "statements in one transaction; ids that do not exist are skipped.")
+  @ApiResponses(value = {
+    @ApiResponse(code = 200, message = "Successfully deleted users"),
+    @ApiResponse(code = 400, message = "The id list is empty")
+  })
 
-    if (!CollectionUtils.isEmpty(account) && account.size() > 0) {
-      allowedAccTypes = account.stream()
-        .filter(acc -> acc.getAccountType().equals(AccountType.SAVINGS.toString()) || acc.getAccountType().equals(AccountType.SALARIED.toString()))
-        .collect(Collectors.toList());
+  @DeleteMapping("/users")
+  public ResponseEntity deleteUsers(
+    @ApiParam(value = "Ids of the users to delete", required = true) @RequestBody List<Long> userIds) {
+    if (CollectionUtils.isEmpty(userIds)) {
+      return ResponseEntity.badRequest().body(USER_IDS_REQUIRED_MESSAGE);
+    }
+    int deleted = userService.deleteUsers(userIds);
+    return ResponseEntity.ok().body(deleted + " of " + userIds.size() + " users deleted successfully.");
+  }
 
-      notAllowedAccTypes = account.stream()
-        .filter(acc -> !acc.getAccountType().equals(AccountType.SAVINGS.toString()) && !acc.getAccountType().equals(AccountType.SALARIED.toString()))
-        .collect(Collectors.toList());
+  static String eTag(long version) {
+    return "\"" + version + "\"";
+  }
 
-      if (!CollectionUtils.isEmpty(notAllowedAccTypes) && notAllowedAccTypes.size() > 0) {
-        return false;
-      }
-      if (!CollectionUtils.isEmpty(allowedAccTypes) && allowedAccTypes.size() > 0) {
-        return true;
+  /**
+   * Reads the version out of a strong If-Match ETag. Returns null when no header or {@code *} was sent, and
+   * -1, which no user has, for anything that is not an ETag of this API.
+   */
+  static Long expectedVersion(String ifMatch) {
+    if (ifMatch == null || "*".equals(ifMatch.trim())) {
+      return null;
+    }
+    String eTag = ifMatch.trim();
+    if (eTag.length() < 2 || eTag.charAt(0) != '"' || eTag.charAt(eTag.length() - 1) != '"') {
+      return -1L;
+    }
+    try {
+      return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  /**
+   * A create or update that passed the email id check but lost the email id to a concurrent write is rejected
+   * by the unique constraint at flush or commit; that is answered like the check. Other integrity violations
+   * are not caused by the request and stay server errors.
+   */
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public ResponseEntity emailIdTaken(DataIntegrityViolationException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof ConstraintViolationException && ((ConstraintViolationException) cause).getConstraintName() != null
+      && ((ConstraintViolationException) cause).getConstraintName().toLowerCase(Locale.ROOT).contains(EMAIL_ID_CONSTRAINT)) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(EMAIL_ALREADY_REGISTERED_MESSAGE);
+    }
+    throw e;
+  }
+
+  /**
+   * A failed If-Match is a failed precondition; without one the write lost a race with another writer.
+   */
+  private static ResponseEntity versionMismatch(String ifMatch) {
+    HttpStatus status = expectedVersion(ifMatch) != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+    return ResponseEntity.status(status).body(VERSION_MISMATCH_MESSAGE);
+  }
+
+  /**
+   * Returns the message for the first rule a new user breaks, or null when it can be saved.
+   */
+  static String validateNewUser(UserDto userDto) {
+    if (CollectionUtils.isEmpty(userDto.getAccount())) {
+      return ACCOUNT_REQUIRED_MESSAGE;
+    }
+    if (!hasOnlyAllowedAccountTypes(userDto.getAccount())) {
+      return INVALID_ACCOUNT_TYPE_MESSAGE;
+    }
+    return null;
+  }
+
+  static boolean hasOnlyAllowedAccountTypes(List<AccountDto> accounts) {
+    if (accounts != null) {
+      for (AccountDto account : accounts) {
+        if (!AccountType.isSupported(account.getAccountType())) {
+          return false;
+        }
       }
     }
-    return false;
-  }*/
+    return true;
+  }
 }
-
@@ -1,11 +1,27 @@
 package com.microservicecrud.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class AccountDto {
 
   private Long accountId;
   private Float balance;
   private String accountType;
 
+  @JsonIgnore
+  private Long userId;
+
+  public AccountDto() {
+
+  }
+
+  public AccountDto(Long accountId, Float balance, String accountType, Long userId) {
+    this.accountId = accountId;
+    this.balance = balance;
+    this.accountType = accountType;
+    this.userId = userId;
+  }
+
   public Float getBalance() {
     return balance;
   }
@@ -30,6 +46,14 @@ public class AccountDto {
     this.accountId = accountId;
   }
 
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
   @Override
   public String toString() {
     return "AccountDto{" +
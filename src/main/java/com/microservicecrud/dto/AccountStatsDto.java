@@ -0,0 +1,89 @@
+package com.microservicecrud.dto;
+
+public class AccountStatsDto {
+
+  private String accountType;
+
+  private long count;
+
+  private Double sum;
+
+  private Float min;
+
+  private Float max;
+
+  private Double avg;
+
+  public AccountStatsDto() {
+
+  }
+
+  public AccountStatsDto(String accountType, Long count, Double sum, Float min, Float max, Double avg) {
+    this.accountType = accountType;
+    this.count = count;
+    this.sum = sum;
+    this.min = min;
+    this.max = max;
+    this.avg = avg;
+  }
+
+  public String getAccountType() {
+    return accountType;
+  }
+
+  public void setAccountType(String accountType) {
+    this.accountType = accountType;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  public Double getSum() {
+    return sum;
+  }
+
+  public void setSum(Double sum) {
+    this.sum = sum;
+  }
+
+  public Float getMin() {
+    return min;
+  }
+
+  public void setMin(Float min) {
+    this.min = min;
+  }
+
+  public Float getMax() {
+    return max;
+  }
+
+  public void setMax(Float max) {
+    this.max = max;
+  }
+
+  public Double getAvg() {
+    return avg;
+  }
+
+  public void setAvg(Double avg) {
+    this.avg = avg;
+  }
+
+  @Override
+  public String toString() {
+    return "AccountStatsDto{" +
+      "accountType='" + accountType + '\'' +
+      ", count=" + count +
+      ", sum=" + sum +
+      ", min=" + min +
+      ", max=" + max +
+      ", avg=" + avg +
+      '}';
+  }
+}
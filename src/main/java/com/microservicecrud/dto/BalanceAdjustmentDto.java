@@ -0,0 +1,47 @@
+package com.microservicecrud.dto;
+
+public class BalanceAdjustmentDto {
+
+  private Float delta;
+
+  private boolean nonNegative;
+
+  public BalanceAdjustmentDto() {
+
+  }
+
+  public BalanceAdjustmentDto(Float delta, boolean nonNegative) {
+    this.delta = delta;
+    this.nonNegative = nonNegative;
+  }
+
+  /**
+   * Amount added to the balance, negative to withdraw.
+   */
+  public Float getDelta() {
+    return delta;
+  }
+
+  public void setDelta(Float delta) {
+    this.delta = delta;
+  }
+
+  /**
+   * When set, the adjustment is refused if it would leave the balance below zero.
+   */
+  public boolean isNonNegative() {
+    return nonNegative;
+  }
+
+  public void setNonNegative(boolean nonNegative) {
+    this.nonNegative = nonNegative;
+  }
+
+  @Override
+  public String toString() {
+    return "BalanceAdjustmentDto{" +
+      "delta=" + delta +
+      ", nonNegative=" + nonNegative +
+      '}';
+  }
+}
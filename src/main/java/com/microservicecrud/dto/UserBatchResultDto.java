@@ -0,0 +1,72 @@
+package com.microservicecrud.dto;
+
+public class UserBatchResultDto {
+
+  public enum Status {
+    CREATED, REJECTED
+  }
+
+  private int index;
+
+  private Status status;
+
+  private Long userId;
+
+  private String message;
+
+  public UserBatchResultDto() {
+
+  }
+
+  public UserBatchResultDto(int index, Status status, Long userId, String message) {
+    this.index = index;
+    this.status = status;
+    this.userId = userId;
+    this.message = message;
+  }
+
+  /**
+   * Position of the user in the request list.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  @Override
+  public String toString() {
+    return "UserBatchResultDto{" +
+      "index=" + index +
+      ", status=" + status +
+      ", userId=" + userId +
+      ", message='" + message + '\'' +
+      '}';
+  }
+}
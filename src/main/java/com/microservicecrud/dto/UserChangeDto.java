@@ -0,0 +1,101 @@
+package com.microservicecrud.dto;
+
+import java.time.Instant;
+
+public class UserChangeDto {
+
+  private long changeId;
+
+  private long position;
+
+  private long userId;
+
+  private String changeType;
+
+  private Instant changedAt;
+
+  private UserDto user;
+
+  public UserChangeDto() {
+
+  }
+
+  public UserChangeDto(long changeId, long position, long userId, String changeType, Instant changedAt,
+                       UserDto user) {
+    this.changeId = changeId;
+    this.position = position;
+    this.userId = userId;
+    this.changeType = changeType;
+    this.changedAt = changedAt;
+    this.user = user;
+  }
+
+  public long getChangeId() {
+    return changeId;
+  }
+
+  public void setChangeId(long changeId) {
+    this.changeId = changeId;
+  }
+
+  /**
+   * Position of the change in the feed; the one of the last change read is where a reader resumes.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  public void setPosition(long position) {
+    this.position = position;
+  }
+
+  public long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(long userId) {
+    this.userId = userId;
+  }
+
+  /**
+   * CREATE, UPDATE or DELETE.
+   */
+  public String getChangeType() {
+    return changeType;
+  }
+
+  public void setChangeType(String changeType) {
+    this.changeType = changeType;
+  }
+
+  public Instant getChangedAt() {
+    return changedAt;
+  }
+
+  public void setChangedAt(Instant changedAt) {
+    this.changedAt = changedAt;
+  }
+
+  /**
+   * The user with its accounts as it is when the change is read, or {@code null} once it has been deleted.
+   */
+  public UserDto getUser() {
+    return user;
+  }
+
+  public void setUser(UserDto user) {
+    this.user = user;
+  }
+
+  @Override
+  public String toString() {
+    return "UserChangeDto{" +
+      "changeId=" + changeId +
+      ", position=" + position +
+      ", userId=" + userId +
+      ", changeType='" + changeType + '\'' +
+      ", changedAt=" + changedAt +
+      ", user=" + user +
+      '}';
+  }
+}
@@ -0,0 +1,46 @@
+package com.microservicecrud.dto;
+
+import java.util.List;
+
+public class UserChangePageDto {
+
+  private List<UserChangeDto> changes;
+
+  private long nextSince;
+
+  public UserChangePageDto() {
+
+  }
+
+  public UserChangePageDto(List<UserChangeDto> changes, long nextSince) {
+    this.changes = changes;
+    this.nextSince = nextSince;
+  }
+
+  public List<UserChangeDto> getChanges() {
+    return changes;
+  }
+
+  public void setChanges(List<UserChangeDto> changes) {
+    this.changes = changes;
+  }
+
+  /**
+   * Value to pass as {@code since} to fetch the following changes; the given {@code since} when there were none.
+   */
+  public long getNextSince() {
+    return nextSince;
+  }
+
+  public void setNextSince(long nextSince) {
+    this.nextSince = nextSince;
+  }
+
+  @Override
+  public String toString() {
+    return "UserChangePageDto{" +
+      "changes=" + changes +
+      ", nextSince=" + nextSince +
+      '}';
+  }
+}
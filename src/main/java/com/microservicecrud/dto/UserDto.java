@@ -8,6 +8,9 @@ public class UserDto {
   @JsonIgnore
   private long userId;
 
+  @JsonIgnore
+  private long version;
+
   private String firstName;
 
   private String lastName;
@@ -32,6 +35,16 @@ public class UserDto {
     this.emailId = emailId;
   }
 
+  public UserDto(long userId, String fisrtName, String lastName, Long phoneNumber, String address, String emailId) {
+    this(fisrtName, lastName, phoneNumber, address, emailId);
+    this.userId = userId;
+  }
+
+  public UserDto(long userId, long version, String fisrtName, String lastName, Long phoneNumber, String address, String emailId) {
+    this(userId, fisrtName, lastName, phoneNumber, address, emailId);
+    this.version = version;
+  }
+
   public long getUserId() {
     return userId;
   }
@@ -40,6 +53,14 @@ public class UserDto {
     this.userId = userId;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
   public String getFirstName() {
     return firstName;
   }
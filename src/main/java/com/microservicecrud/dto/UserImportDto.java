@@ -0,0 +1,155 @@
+package com.microservicecrud.dto;
+
+import java.time.Instant;
+
+public class UserImportDto {
+
+  private long importId;
+
+  private String file;
+
+  private String format;
+
+  private String status;
+
+  private String message;
+
+  private Instant startedAt;
+
+  private Instant finishedAt;
+
+  private long committedChunks;
+
+  private long importedUsers;
+
+  private long rejectedUsers;
+
+  private Double usersPerSecond;
+
+  public UserImportDto() {
+
+  }
+
+  public UserImportDto(Long committedChunks, Long importedUsers, Long rejectedUsers) {
+    this.committedChunks = committedChunks;
+    this.importedUsers = importedUsers;
+    this.rejectedUsers = rejectedUsers;
+  }
+
+  public long getImportId() {
+    return importId;
+  }
+
+  public void setImportId(long importId) {
+    this.importId = importId;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public String getFormat() {
+    return format;
+  }
+
+  public void setFormat(String format) {
+    this.format = format;
+  }
+
+  /**
+   * RUNNING, COMPLETED or FAILED; an import whose instance went down while it ran stays RUNNING until resumed.
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  /**
+   * Why the import failed, null otherwise.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  /**
+   * Start of the latest run, a resumed import is started again.
+   */
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+
+  public long getCommittedChunks() {
+    return committedChunks;
+  }
+
+  public void setCommittedChunks(long committedChunks) {
+    this.committedChunks = committedChunks;
+  }
+
+  public long getImportedUsers() {
+    return importedUsers;
+  }
+
+  public void setImportedUsers(long importedUsers) {
+    this.importedUsers = importedUsers;
+  }
+
+  public long getRejectedUsers() {
+    return rejectedUsers;
+  }
+
+  public void setRejectedUsers(long rejectedUsers) {
+    this.rejectedUsers = rejectedUsers;
+  }
+
+  /**
+   * Users imported per second by the latest run, null when it did not run on this instance.
+   */
+  public Double getUsersPerSecond() {
+    return usersPerSecond;
+  }
+
+  public void setUsersPerSecond(Double usersPerSecond) {
+    this.usersPerSecond = usersPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return "UserImportDto{" +
+      "importId=" + importId +
+      ", file='" + file + '\'' +
+      ", format='" + format + '\'' +
+      ", status='" + status + '\'' +
+      ", message='" + message + '\'' +
+      ", startedAt=" + startedAt +
+      ", finishedAt=" + finishedAt +
+      ", committedChunks=" + committedChunks +
+      ", importedUsers=" + importedUsers +
+      ", rejectedUsers=" + rejectedUsers +
+      ", usersPerSecond=" + usersPerSecond +
+      '}';
+  }
+}
@@ -0,0 +1,46 @@
+package com.microservicecrud.dto;
+
+import java.util.List;
+
+public class UserPageDto {
+
+  private List<UserDto> users;
+
+  private Long nextCursor;
+
+  public UserPageDto() {
+
+  }
+
+  public UserPageDto(List<UserDto> users, Long nextCursor) {
+    this.users = users;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<UserDto> getUsers() {
+    return users;
+  }
+
+  public void setUsers(List<UserDto> users) {
+    this.users = users;
+  }
+
+  /**
+   * Value to pass as {@code after} to fetch the next page, or {@code null} when this is the last page.
+   */
+  public Long getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(Long nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  @Override
+  public String toString() {
+    return "UserPageDto{" +
+      "users=" + users +
+      ", nextCursor=" + nextCursor +
+      '}';
+  }
+}
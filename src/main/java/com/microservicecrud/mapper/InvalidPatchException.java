@@ -0,0 +1,12 @@
+package com.microservicecrud.mapper;
+
+/**
+ * Thrown by {@link UserPatcher} when a patch body names a field, value or account that cannot be applied. The
+ * message is meant for the client.
+ */
+public class InvalidPatchException extends RuntimeException {
+
+  public InvalidPatchException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,77 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps between the {@link User}/{@link Account} entities and their DTOs. The property mapping is written out
+ * by hand, so no type-map introspection or reflection happens per call; the output matches what
+ * {@code ModelMapper} produced for these types.
+ */
+@Component
+public class UserMapper {
+
+  public List<UserDto> toDtos(List<User> users) {
+    List<UserDto> userDtoList = new ArrayList<>(users.size());
+    for (User user : users) {
+      userDtoList.add(toDto(user));
+    }
+    return userDtoList;
+  }
+
+  public UserDto toDto(User user) {
+    UserDto userDto = new UserDto(user.getFirstName(), user.getLastName(), user.getPhoneNumber(),
+      user.getAddress(), user.getEmailId());
+    userDto.setUserId(user.getUserId());
+    userDto.setVersion(user.getVersion());
+
+    List<Account> accounts = user.getAccounts();
+    List<AccountDto> accountDtos = new ArrayList<>(accounts != null ? accounts.size() : 0);
+    if (!CollectionUtils.isEmpty(accounts)) {
+      for (Account account : accounts) {
+        accountDtos.add(toDto(account));
+      }
+    }
+    userDto.setAccount(accountDtos);
+    return userDto;
+  }
+
+  public AccountDto toDto(Account account) {
+    AccountDto accountDto = new AccountDto();
+    accountDto.setAccountId(account.getAccountId());
+    accountDto.setBalance(account.getBalance());
+    accountDto.setAccountType(account.getAccountType());
+    return accountDto;
+  }
+
+  /**
+   * Returns a deep copy of the user and its accounts, for holders that must not share the instance.
+   */
+  public static UserDto copy(UserDto userDto) {
+    UserDto copy = new UserDto(userDto.getUserId(), userDto.getVersion(), userDto.getFirstName(),
+      userDto.getLastName(), userDto.getPhoneNumber(), userDto.getAddress(), userDto.getEmailId());
+    if (userDto.getAccount() != null) {
+      List<AccountDto> accountDtos = new ArrayList<>(userDto.getAccount().size());
+      for (AccountDto accountDto : userDto.getAccount()) {
+        accountDtos.add(new AccountDto(accountDto.getAccountId(), accountDto.getBalance(),
+          accountDto.getAccountType(), accountDto.getUserId()));
+      }
+      copy.setAccount(accountDtos);
+    }
+    return copy;
+  }
+
+  public Account toEntity(AccountDto accountDto, User user) {
+    Account account = new Account(accountDto.getBalance(), accountDto.getAccountType(), user);
+    if (accountDto.getAccountId() != null) {
+      account.setAccountId(accountDto.getAccountId());
+    }
+    return account;
+  }
+}
@@ -0,0 +1,211 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.AccountType;
+import com.microservicecrud.model.User;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Turns a JSON merge-patch body into typed setter calls on {@link User} and its {@link Account}s. The
+ * patchable fields and their setters are resolved once into lookup tables; a body is checked completely
+ * before anything is loaded or changed, and unknown fields or values of the wrong type are rejected with an
+ * {@link InvalidPatchException}.
+ */
+@Component
+public class UserPatcher {
+
+  static final String ACCOUNT_FIELD = "account";
+
+  static final String ACCOUNT_ID_FIELD = "accountId";
+
+  static final String EMAIL_ID_FIELD = "emailId";
+
+  private static final Map<String, FieldSetter<User, ?>> USER_FIELDS;
+
+  private static final Map<String, FieldSetter<Account, ?>> ACCOUNT_FIELDS;
+
+  static {
+    Map<String, FieldSetter<User, ?>> userFields = new HashMap<>();
+    userFields.put("firstName", new FieldSetter<>(UserPatcher::toText, User::setFirstName));
+    userFields.put("lastName", new FieldSetter<>(UserPatcher::toText, User::setLastName));
+    userFields.put("phoneNumber", new FieldSetter<>(UserPatcher::toLong, User::setPhoneNumber));
+    userFields.put("address", new FieldSetter<>(UserPatcher::toText, User::setAddress));
+    userFields.put(EMAIL_ID_FIELD, new FieldSetter<>(UserPatcher::toText, User::setEmailId));
+    USER_FIELDS = Collections.unmodifiableMap(userFields);
+
+    Map<String, FieldSetter<Account, ?>> accountFields = new HashMap<>();
+    accountFields.put("balance", new FieldSetter<>(UserPatcher::toFloat, Account::setBalance));
+    accountFields.put("accountType", new FieldSetter<>(UserPatcher::toAccountType, Account::setAccountType));
+    ACCOUNT_FIELDS = Collections.unmodifiableMap(accountFields);
+  }
+
+  /**
+   * Validates and converts the patch body. Throws {@link InvalidPatchException} naming the first field
+   * that cannot be applied.
+   */
+  public UserPatch prepare(Map<String, Object> fields) {
+    List<Change<User>> userChanges = new ArrayList<>(fields.size());
+    Map<Long, List<Change<Account>>> accountChanges = new LinkedHashMap<>();
+
+    for (Map.Entry<String, Object> field : fields.entrySet()) {
+      if (ACCOUNT_FIELD.equals(field.getKey())) {
+        prepareAccounts(field.getValue(), accountChanges);
+      } else {
+        userChanges.add(change(USER_FIELDS, field.getKey(), field.getValue()));
+      }
+    }
+    return new UserPatch(userChanges, accountChanges, (String) fields.get(EMAIL_ID_FIELD));
+  }
+
+  private void prepareAccounts(Object value, Map<Long, List<Change<Account>>> accountChanges) {
+    if (!(value instanceof List)) {
+      throw new InvalidPatchException("Field 'account' must be a list of account objects.");
+    }
+    for (Object item : (List<?>) value) {
+      if (!(item instanceof Map)) {
+        throw new InvalidPatchException("Field 'account' must be a list of account objects.");
+      }
+      Map<?, ?> accountFields = (Map<?, ?>) item;
+      Object accountId = accountFields.get(ACCOUNT_ID_FIELD);
+      if (!(accountId instanceof Integer) && !(accountId instanceof Long)) {
+        throw new InvalidPatchException("Every account to patch needs a numeric 'accountId'.");
+      }
+
+      List<Change<Account>> changes = new ArrayList<>(accountFields.size());
+      for (Map.Entry<?, ?> field : accountFields.entrySet()) {
+        if (!ACCOUNT_ID_FIELD.equals(field.getKey())) {
+          changes.add(change(ACCOUNT_FIELDS, String.valueOf(field.getKey()), field.getValue()));
+        }
+      }
+      accountChanges.put(((Number) accountId).longValue(), changes);
+    }
+  }
+
+  private static <T> Change<T> change(Map<String, FieldSetter<T, ?>> setters, String name, Object value) {
+    FieldSetter<T, ?> setter = setters.get(name);
+    if (setter == null) {
+      throw new InvalidPatchException("Field '" + name + "' cannot be patched.");
+    }
+    if (value == null) {
+      throw new InvalidPatchException("Field '" + name + "' cannot be null.");
+    }
+    return setter.prepare(name, value);
+  }
+
+  private static String toText(Object value) {
+    return value instanceof String ? (String) value : null;
+  }
+
+  private static Long toLong(Object value) {
+    return value instanceof Integer || value instanceof Long ? ((Number) value).longValue() : null;
+  }
+
+  private static Float toFloat(Object value) {
+    return value instanceof Number ? ((Number) value).floatValue() : null;
+  }
+
+  private static String toAccountType(Object value) {
+    return AccountType.isSupported(toText(value)) ? (String) value : null;
+  }
+
+  /**
+   * A converted patch that can be applied to a loaded user.
+   */
+  public static final class UserPatch {
+
+    private final List<Change<User>> userChanges;
+
+    private final Map<Long, List<Change<Account>>> accountChanges;
+
+    private final String emailId;
+
+    UserPatch(List<Change<User>> userChanges, Map<Long, List<Change<Account>>> accountChanges, String emailId) {
+      this.userChanges = userChanges;
+      this.accountChanges = accountChanges;
+      this.emailId = emailId;
+    }
+
+    public boolean touchesAccounts() {
+      return !accountChanges.isEmpty();
+    }
+
+    /**
+     * The email id the patch sets, or null when it keeps the current one.
+     */
+    public String getEmailId() {
+      return emailId;
+    }
+
+    /**
+     * Sets the patched values on the user and its accounts. Throws {@link InvalidPatchException} when a
+     * patched account does not belong to the user.
+     */
+    public void applyTo(User user) {
+      for (Change<User> change : userChanges) {
+        change.applyTo(user);
+      }
+      for (Map.Entry<Long, List<Change<Account>>> accountChange : accountChanges.entrySet()) {
+        Account account = findAccount(user, accountChange.getKey());
+        for (Change<Account> change : accountChange.getValue()) {
+          change.applyTo(account);
+        }
+      }
+    }
+
+    private static Account findAccount(User user, long accountId) {
+      if (user.getAccounts() != null) {
+        for (Account account : user.getAccounts()) {
+          if (account.getAccountId() == accountId) {
+            return account;
+          }
+        }
+      }
+      throw new InvalidPatchException("Account " + accountId + " does not belong to user " + user.getUserId() + ".");
+    }
+  }
+
+  private static final class FieldSetter<T, V> {
+
+    private final Function<Object, V> converter;
+
+    private final BiConsumer<T, V> setter;
+
+    FieldSetter(Function<Object, V> converter, BiConsumer<T, V> setter) {
+      this.converter = converter;
+      this.setter = setter;
+    }
+
+    Change<T> prepare(String name, Object value) {
+      V converted = converter.apply(value);
+      if (converted == null) {
+        throw new InvalidPatchException("Field '" + name + "' has an invalid value: " + value);
+      }
+      return new Change<>(setter, converted);
+    }
+  }
+
+  private static final class Change<T> {
+
+    private final BiConsumer<T, Object> setter;
+
+    private final Object value;
+
+    @SuppressWarnings("unchecked")
+    <V> Change(BiConsumer<T, V> setter, V value) {
+      this.setter = (BiConsumer<T, Object>) setter;
+      this.value = value;
+    }
+
+    void applyTo(T target) {
+      setter.accept(target, value);
+    }
+  }
+}
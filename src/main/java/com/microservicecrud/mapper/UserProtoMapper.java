@@ -0,0 +1,94 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.proto.AccountProto;
+import com.microservicecrud.proto.UserPageProto;
+import com.microservicecrud.proto.UserProto;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the user DTOs to the protobuf messages of {@code user.proto} and back. Protobuf has no nulls, a
+ * missing DTO property is left unset and reads back as null.
+ */
+public class UserProtoMapper {
+
+  public UserPageProto toProto(UserPageDto page) {
+    UserPageProto.Builder builder = UserPageProto.newBuilder();
+    if (page.getUsers() != null) {
+      for (UserDto userDto : page.getUsers()) {
+        builder.addUsers(toProto(userDto));
+      }
+    }
+    if (page.getNextCursor() != null) {
+      builder.setNextCursor(page.getNextCursor());
+    }
+    return builder.build();
+  }
+
+  public UserProto toProto(UserDto userDto) {
+    UserProto.Builder builder = UserProto.newBuilder();
+    if (userDto.getFirstName() != null) {
+      builder.setFirstName(userDto.getFirstName());
+    }
+    if (userDto.getLastName() != null) {
+      builder.setLastName(userDto.getLastName());
+    }
+    if (userDto.getPhoneNumber() != null) {
+      builder.setPhoneNumber(userDto.getPhoneNumber());
+    }
+    if (userDto.getAddress() != null) {
+      builder.setAddress(userDto.getAddress());
+    }
+    if (userDto.getEmailId() != null) {
+      builder.setEmailId(userDto.getEmailId());
+    }
+    if (userDto.getAccount() != null) {
+      for (AccountDto accountDto : userDto.getAccount()) {
+        builder.addAccount(toProto(accountDto));
+      }
+    }
+    return builder.build();
+  }
+
+  public AccountProto toProto(AccountDto accountDto) {
+    AccountProto.Builder builder = AccountProto.newBuilder();
+    if (accountDto.getAccountId() != null) {
+      builder.setAccountId(accountDto.getAccountId());
+    }
+    if (accountDto.getBalance() != null) {
+      builder.setBalance(accountDto.getBalance());
+    }
+    if (accountDto.getAccountType() != null) {
+      builder.setAccountType(accountDto.getAccountType());
+    }
+    return builder.build();
+  }
+
+  public UserPageDto toDto(UserPageProto page) {
+    List<UserDto> users = new ArrayList<>(page.getUsersCount());
+    for (UserProto user : page.getUsersList()) {
+      users.add(toDto(user));
+    }
+    return new UserPageDto(users, page.getNextCursor() != 0 ? page.getNextCursor() : null);
+  }
+
+  public UserDto toDto(UserProto user) {
+    UserDto userDto = new UserDto(emptyToNull(user.getFirstName()), emptyToNull(user.getLastName()),
+      user.getPhoneNumber() != 0 ? user.getPhoneNumber() : null, emptyToNull(user.getAddress()),
+      emptyToNull(user.getEmailId()));
+    List<AccountDto> accounts = new ArrayList<>(user.getAccountCount());
+    for (AccountProto account : user.getAccountList()) {
+      accounts.add(new AccountDto(account.getAccountId() != 0 ? account.getAccountId() : null, account.getBalance(),
+        emptyToNull(account.getAccountType()), null));
+    }
+    userDto.setAccount(accounts);
+    return userDto;
+  }
+
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+}
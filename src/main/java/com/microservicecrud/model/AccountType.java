@@ -14,6 +14,15 @@ public enum AccountType {
     return text;
   }
 
+  public static boolean isSupported(String text) {
+    for (AccountType accountType : values()) {
+      if (accountType.text.equals(text)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
  /* public static AccountType getByValue(String val) {
     for (AccountType c : values()) {
       if (c.value.equals(val)) {
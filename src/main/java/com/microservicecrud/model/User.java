@@ -1,6 +1,7 @@
 package com.microservicecrud.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.microservicecrud.config.HibernateCacheConfig;
 import java.util.List;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
@@ -8,15 +9,31 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "user")
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_REGION)
+@Table(name = "user",
+  indexes = {
+    @Index(name = "idx_user_phone_number", columnList = "phone_number"),
+    @Index(name = "idx_user_last_name", columnList = "last_name")
+  },
+  uniqueConstraints = @UniqueConstraint(name = "uk_user_email_id", columnNames = "email_id"))
 public class User {
 
   @javax.persistence.Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+  @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
   @Column(name = "userId")
   private long userId;
 
@@ -35,7 +52,13 @@ public class User {
   @Column(name = "email_id", nullable = false)
   private String emailId;
 
-  @OneToMany(fetch = FetchType.EAGER, mappedBy = "user" , cascade = CascadeType.ALL )
+  @Version
+  @Column(name = "version", nullable = false)
+  private long version;
+
+  @OneToMany(fetch = FetchType.LAZY, mappedBy = "user" , cascade = CascadeType.ALL )
+  @BatchSize(size = 100)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_ACCOUNTS_REGION)
   //@JsonManagedReference
   @JsonIgnore
   private List<Account> accounts;
@@ -101,6 +124,14 @@ public class User {
     this.emailId = emailId;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
   public List<Account> getAccounts() {
     return accounts;
   }
@@ -0,0 +1,99 @@
+package com.microservicecrud.model;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Table;
+
+/**
+ * Outbox entry recording that a user was created, updated or deleted. Entries are written with
+ * {@code insert ... select} by the repository, the identity column numbers them in insertion order. The feed
+ * position is assigned by the {@link com.microservicecrud.service.UserChangeSequencer} once the entry committed,
+ * readers follow the feed in that order.
+ */
+@Entity
+@Table(name = "user_change")
+public class UserChange {
+
+  public static final String CREATE = "CREATE";
+
+  public static final String UPDATE = "UPDATE";
+
+  public static final String DELETE = "DELETE";
+
+  @javax.persistence.Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "change_id")
+  private long changeId;
+
+  @Column(name = "user_id", nullable = false)
+  private long userId;
+
+  @Column(name = "change_type", nullable = false)
+  private String changeType;
+
+  @Column(name = "changed_at", nullable = false)
+  private Instant changedAt;
+
+  @Column(name = "feed_position")
+  private Long feedPosition;
+
+  public UserChange() {
+  }
+
+  public long getChangeId() {
+    return changeId;
+  }
+
+  public void setChangeId(long changeId) {
+    this.changeId = changeId;
+  }
+
+  public long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(long userId) {
+    this.userId = userId;
+  }
+
+  public String getChangeType() {
+    return changeType;
+  }
+
+  public void setChangeType(String changeType) {
+    this.changeType = changeType;
+  }
+
+  public Instant getChangedAt() {
+    return changedAt;
+  }
+
+  public void setChangedAt(Instant changedAt) {
+    this.changedAt = changedAt;
+  }
+
+  /**
+   * Null until the entry is sequenced.
+   */
+  public Long getFeedPosition() {
+    return feedPosition;
+  }
+
+  public void setFeedPosition(Long feedPosition) {
+    this.feedPosition = feedPosition;
+  }
+
+  @Override
+  public String toString() {
+    return "UserChange{" +
+      "changeId=" + changeId +
+      ", userId=" + userId +
+      ", changeType='" + changeType + '\'' +
+      ", changedAt=" + changedAt +
+      ", feedPosition=" + feedPosition +
+      '}';
+  }
+}
@@ -0,0 +1,42 @@
+package com.microservicecrud.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * The last feed position the {@link com.microservicecrud.service.UserChangeSequencer} assigned to a
+ * {@link UserChange}.
+ */
+@Entity
+@Table(name = "user_change_feed")
+public class UserChangeFeed {
+
+  public static final String DEFAULT_FEED = "default";
+
+  @javax.persistence.Id
+  @Column(name = "feed_id")
+  private String feedId;
+
+  @Column(name = "last_position", nullable = false)
+  private long lastPosition;
+
+  public UserChangeFeed() {
+  }
+
+  public String getFeedId() {
+    return feedId;
+  }
+
+  public void setFeedId(String feedId) {
+    this.feedId = feedId;
+  }
+
+  public long getLastPosition() {
+    return lastPosition;
+  }
+
+  public void setLastPosition(long lastPosition) {
+    this.lastPosition = lastPosition;
+  }
+}
@@ -0,0 +1,41 @@
+package com.microservicecrud.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * The feed position of the last {@link UserChange} a relay has handed to its sink.
+ */
+@Entity
+@Table(name = "user_change_relay")
+public class UserChangeRelayPosition {
+
+  public static final String DEFAULT_RELAY = "default";
+
+  @javax.persistence.Id
+  @Column(name = "relay_id")
+  private String relayId;
+
+  @Column(name = "last_position", nullable = false)
+  private long lastPosition;
+
+  public UserChangeRelayPosition() {
+  }
+
+  public String getRelayId() {
+    return relayId;
+  }
+
+  public void setRelayId(String relayId) {
+    this.relayId = relayId;
+  }
+
+  public long getLastPosition() {
+    return lastPosition;
+  }
+
+  public void setLastPosition(long lastPosition) {
+    this.lastPosition = lastPosition;
+  }
+}
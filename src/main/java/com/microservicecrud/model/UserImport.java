@@ -0,0 +1,139 @@
+package com.microservicecrud.model;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Table;
+
+/**
+ * A bulk import of a user file. The committed chunks of the import are recorded as {@link UserImportChunk}.
+ */
+@Entity
+@Table(name = "user_import")
+public class UserImport {
+
+  public static final String CSV = "csv";
+
+  public static final String NDJSON = "ndjson";
+
+  public static final String RUNNING = "RUNNING";
+
+  public static final String COMPLETED = "COMPLETED";
+
+  public static final String FAILED = "FAILED";
+
+  @javax.persistence.Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "import_id")
+  private long importId;
+
+  @Column(name = "file", nullable = false)
+  private String file;
+
+  @Column(name = "format", nullable = false)
+  private String format;
+
+  @Column(name = "chunk_size", nullable = false)
+  private int chunkSize;
+
+  @Column(name = "status", nullable = false)
+  private String status;
+
+  @Column(name = "message")
+  private String message;
+
+  @Column(name = "started_at", nullable = false)
+  private Instant startedAt;
+
+  @Column(name = "finished_at")
+  private Instant finishedAt;
+
+  public UserImport() {
+  }
+
+  public UserImport(String file, String format, int chunkSize) {
+    this.file = file;
+    this.format = format;
+    this.chunkSize = chunkSize;
+  }
+
+  public long getImportId() {
+    return importId;
+  }
+
+  public void setImportId(long importId) {
+    this.importId = importId;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public String getFormat() {
+    return format;
+  }
+
+  public void setFormat(String format) {
+    this.format = format;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+
+  @Override
+  public String toString() {
+    return "UserImport{" +
+      "importId=" + importId +
+      ", file='" + file + '\'' +
+      ", format='" + format + '\'' +
+      ", chunkSize=" + chunkSize +
+      ", status='" + status + '\'' +
+      ", message='" + message + '\'' +
+      ", startedAt=" + startedAt +
+      ", finishedAt=" + finishedAt +
+      '}';
+  }
+}
@@ -0,0 +1,110 @@
+package com.microservicecrud.model;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Table;
+
+/**
+ * Checkpoint of a chunk of a {@link UserImport}, saved in the transaction that inserted its users.
+ */
+@Entity
+@Table(name = "user_import_chunk")
+public class UserImportChunk {
+
+  @javax.persistence.Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "chunk_id")
+  private long chunkId;
+
+  @Column(name = "import_id", nullable = false)
+  private long importId;
+
+  /**
+   * Position of the chunk in the file, starting at 0.
+   */
+  @Column(name = "chunk_no", nullable = false)
+  private long chunkNo;
+
+  @Column(name = "imported_users", nullable = false)
+  private int importedUsers;
+
+  @Column(name = "rejected_users", nullable = false)
+  private int rejectedUsers;
+
+  @Column(name = "committed_at", nullable = false)
+  private Instant committedAt;
+
+  public UserImportChunk() {
+  }
+
+  public UserImportChunk(long importId, long chunkNo, int importedUsers, int rejectedUsers, Instant committedAt) {
+    this.importId = importId;
+    this.chunkNo = chunkNo;
+    this.importedUsers = importedUsers;
+    this.rejectedUsers = rejectedUsers;
+    this.committedAt = committedAt;
+  }
+
+  public long getChunkId() {
+    return chunkId;
+  }
+
+  public void setChunkId(long chunkId) {
+    this.chunkId = chunkId;
+  }
+
+  public long getImportId() {
+    return importId;
+  }
+
+  public void setImportId(long importId) {
+    this.importId = importId;
+  }
+
+  public long getChunkNo() {
+    return chunkNo;
+  }
+
+  public void setChunkNo(long chunkNo) {
+    this.chunkNo = chunkNo;
+  }
+
+  public int getImportedUsers() {
+    return importedUsers;
+  }
+
+  public void setImportedUsers(int importedUsers) {
+    this.importedUsers = importedUsers;
+  }
+
+  public int getRejectedUsers() {
+    return rejectedUsers;
+  }
+
+  public void setRejectedUsers(int rejectedUsers) {
+    this.rejectedUsers = rejectedUsers;
+  }
+
+  public Instant getCommittedAt() {
+    return committedAt;
+  }
+
+  public void setCommittedAt(Instant committedAt) {
+    this.committedAt = committedAt;
+  }
+
+  @Override
+  public String toString() {
+    return "UserImportChunk{" +
+      "chunkId=" + chunkId +
+      ", importId=" + importId +
+      ", chunkNo=" + chunkNo +
+      ", importedUsers=" + importedUsers +
+      ", rejectedUsers=" + rejectedUsers +
+      ", committedAt=" + committedAt +
+      '}';
+  }
+}
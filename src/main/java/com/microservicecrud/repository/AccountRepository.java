@@ -1,12 +1,71 @@
 package com.microservicecrud.repository;
 
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.AccountStatsDto;
 import com.microservicecrud.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
   void deleteByUserUserId(Long userId);
 
+  /**
+   * Served from the query cache while no account has been written since the result was cached; the accounts
+   * themselves then come from the second-level cache.
+   */
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
   List<Account> getAccountByUserUserId(Long userId);
+
+  /**
+   * Reads the account columns of the given users straight into DTOs, ordered by user and account id.
+   * No entities are loaded, so nothing is added to the persistence context.
+   */
+  @Query("select new com.microservicecrud.dto.AccountDto(a.accountId, a.balance, a.accountType, a.user.userId) " +
+    "from Account a where a.user.userId in :userIds order by a.user.userId, a.accountId")
+  List<AccountDto> findDtosByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+  @Query("select new com.microservicecrud.dto.AccountDto(a.accountId, a.balance, a.accountType, a.user.userId) " +
+    "from Account a where a.accountId = :accountId")
+  Optional<AccountDto> findDtoByAccountId(@Param("accountId") long accountId);
+
+  /**
+   * Adds the delta to the balance in the database, so concurrent adjustments queue on the row lock instead of
+   * overwriting each other. Returns 0 when the account does not exist.
+   */
+  @Modifying
+  @Query("update Account a set a.balance = a.balance + :delta where a.accountId = :accountId")
+  int adjustBalance(@Param("accountId") long accountId, @Param("delta") float delta);
+
+  /**
+   * Like {@link #adjustBalance}, but leaves the row alone and returns 0 when the new balance would be negative.
+   */
+  @Modifying
+  @Query("update Account a set a.balance = a.balance + :delta where a.accountId = :accountId and a.balance + :delta >= 0")
+  int adjustBalanceNotBelowZero(@Param("accountId") long accountId, @Param("delta") float delta);
+
+  /**
+   * Count, sum, min, max and average balance per account type over the accounts of users in the given id
+   * range, aggregated by the database.
+   */
+  @Query("select new com.microservicecrud.dto.AccountStatsDto(a.accountType, count(a), sum(a.balance), min(a.balance), " +
+    "max(a.balance), avg(a.balance)) from Account a where a.user.userId between :fromUserId and :toUserId " +
+    "group by a.accountType order by a.accountType")
+  List<AccountStatsDto> findStatsByUserIdBetween(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId);
+
+  /**
+   * Deletes the accounts of the given users in one statement, without loading them.
+   */
+  @Modifying
+  @Query("delete from Account a where a.user.userId in :userIds")
+  int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
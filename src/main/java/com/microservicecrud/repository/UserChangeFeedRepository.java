@@ -0,0 +1,19 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.model.UserChangeFeed;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+
+public interface UserChangeFeedRepository extends JpaRepository<UserChangeFeed, String> {
+
+  /**
+   * Reads the feed with a row lock held until the transaction ends, a second sequencer waits here.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select f from UserChangeFeed f where f.feedId = :feedId")
+  Optional<UserChangeFeed> findForUpdate(@Param("feedId") String feedId);
+}
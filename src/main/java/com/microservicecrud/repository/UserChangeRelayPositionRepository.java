@@ -0,0 +1,19 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.model.UserChangeRelayPosition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+
+public interface UserChangeRelayPositionRepository extends JpaRepository<UserChangeRelayPosition, String> {
+
+  /**
+   * Reads the position with a row lock held until the transaction ends, a second relay waits here.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p from UserChangeRelayPosition p where p.relayId = :relayId")
+  Optional<UserChangeRelayPosition> findForUpdate(@Param("relayId") String relayId);
+}
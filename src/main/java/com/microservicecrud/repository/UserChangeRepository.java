@@ -0,0 +1,54 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.model.UserChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+  /**
+   * Records a change of each given user that exists, with one statement in the transaction of the change, so
+   * the entries commit or roll back together with it. Pending inserts are flushed first, so
+   * users created in the same transaction are included; deletes must be recorded before the users are deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("insert into UserChange (userId, changeType, changedAt) " +
+    "select u.userId, :changeType, :changedAt from User u where u.userId in :userIds")
+  int recordChanges(@Param("userIds") Collection<Long> userIds, @Param("changeType") String changeType,
+                    @Param("changedAt") Instant changedAt);
+
+  /**
+   * Records the changes at the current time, cut to the milliseconds the column keeps so the database does not
+   * round it into the future.
+   */
+  default int recordChanges(Collection<Long> userIds, String changeType) {
+    return recordChanges(userIds, changeType, Instant.now().truncatedTo(ChronoUnit.MILLIS));
+  }
+
+  /**
+   * Ids of the changes that have no feed position yet, in change order. Only committed changes are visible here,
+   * one that is still being written is left for a later sequencer run.
+   */
+  @Query("select c.changeId from UserChange c where c.feedPosition is null order by c.changeId")
+  List<Long> findUnsequencedChangeIds(Pageable pageable);
+
+  /**
+   * Sets the feed position of each given change to its change id plus the offset, in one statement.
+   */
+  @Modifying
+  @Query("update UserChange c set c.feedPosition = c.changeId + :offset where c.changeId in :changeIds")
+  int assignFeedPositions(@Param("changeIds") Collection<Long> changeIds, @Param("offset") long offset);
+
+  /**
+   * Changes after the given feed position in feed order.
+   */
+  @Query("select c from UserChange c where c.feedPosition > :since order by c.feedPosition")
+  List<UserChange> findAfter(@Param("since") long since, Pageable pageable);
+}
@@ -0,0 +1,23 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.dto.UserImportDto;
+import com.microservicecrud.model.UserImportChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface UserImportChunkRepository extends JpaRepository<UserImportChunk, Long> {
+
+  @Query("select c.chunkNo from UserImportChunk c where c.importId = :importId")
+  List<Long> findChunkNosByImportId(@Param("importId") long importId);
+
+  boolean existsByImportIdAndChunkNo(long importId, long chunkNo);
+
+  /**
+   * Committed chunks, imported and rejected users over all runs of the import, summed by the database.
+   */
+  @Query("select new com.microservicecrud.dto.UserImportDto(count(c), coalesce(sum(c.importedUsers), 0), " +
+    "coalesce(sum(c.rejectedUsers), 0)) from UserImportChunk c where c.importId = :importId")
+  UserImportDto findTotalsByImportId(@Param("importId") long importId);
+}
@@ -0,0 +1,10 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.model.UserImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+
+public interface UserImportRepository extends JpaRepository<UserImport, Long> {
+
+  Optional<UserImport> findFirstByFileOrderByImportIdDesc(String file);
+}
@@ -1,10 +1,76 @@
 package com.microservicecrud.repository;
 
+import com.microservicecrud.dto.UserDto;
 import com.microservicecrud.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+
+  /**
+   * Reads the user columns straight into a DTO without loading the entity. Accounts are not set.
+   */
+  @Query("select new com.microservicecrud.dto.UserDto(u.userId, u.version, u.firstName, u.lastName, u.phoneNumber, u.address, u.emailId) " +
+    "from User u where u.userId = :userId")
+  Optional<UserDto> findDtoByUserId(@Param("userId") long userId);
+
+  /**
+   * Reads the users with an id greater than the given one, in id order, straight into DTOs. Accounts are not set.
+   */
+  @Query("select new com.microservicecrud.dto.UserDto(u.userId, u.version, u.firstName, u.lastName, u.phoneNumber, u.address, u.emailId) " +
+    "from User u where u.userId > :userId order by u.userId")
+  List<UserDto> findDtosAfter(@Param("userId") long userId, Pageable pageable);
+
+  /**
+   * Reads the given users straight into DTOs, in id order. Ids without a user are skipped, accounts are not set.
+   */
+  @Query("select new com.microservicecrud.dto.UserDto(u.userId, u.version, u.firstName, u.lastName, u.phoneNumber, u.address, u.emailId) " +
+    "from User u where u.userId in :userIds order by u.userId")
+  List<UserDto> findDtosByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+  /**
+   * Reads only the version of the user, enough to answer a conditional GET without building the DTO.
+   */
+  @Query("select u.version from User u where u.userId = :userId")
+  Optional<Long> findVersionByUserId(@Param("userId") long userId);
+
+  /**
+   * Moves the version of the user without loading it, for writes that changed only one of its accounts.
+   */
+  @Modifying
+  @Query("update User u set u.version = u.version + 1 where u.userId = :userId")
+  int incrementVersion(@Param("userId") long userId);
+
+  @Query("select u.emailId from User u where u.emailId in :emailIds")
+  List<String> findEmailIdsIn(@Param("emailIds") Collection<String> emailIds);
+
+  /**
+   * Deletes the given users in one statement, without loading them. Their accounts must be deleted first.
+   */
+  @Modifying
+  @Query("delete from User u where u.userId in :userIds")
+  int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 
+  /**
+   * Streams every user in id order through a scrollable cursor, straight into DTOs, so the persistence context
+   * does not fill up with entities. Must be consumed inside a transaction and closed afterwards. Accounts are
+   * not set.
+   */
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+  @Query("select new com.microservicecrud.dto.UserDto(u.userId, u.version, u.firstName, u.lastName, u.phoneNumber, u.address, u.emailId) " +
+    "from User u order by u.userId")
+  Stream<UserDto> streamDtosByOrderByUserId();
 }
@@ -0,0 +1,23 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.User;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+  /**
+   * Keyset page of users with an id greater than {@code after} matching every given criterion, ordered by id
+   * and projected into DTOs without accounts. Null criteria are left out of the statement so each lookup can
+   * use its column index; {@code lastName} matches as a prefix.
+   */
+  List<UserDto> searchDtos(String emailId, Long phoneNumber, String lastName, long after, int limit);
+
+  /**
+   * Loads the user and its accounts for a write. A user held by the second-level cache is taken from there,
+   * its accounts from the cached collection, so no statement is sent; any other user is read together with
+   * its accounts in one join.
+   */
+  Optional<User> findForUpdate(long userId);
+}
@@ -0,0 +1,69 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  @Override
+  public List<UserDto> searchDtos(String emailId, Long phoneNumber, String lastName, long after, int limit) {
+    List<String> conditions = new ArrayList<>();
+    // left out on the first page, a range on the primary key would tempt the planner to walk it in id order
+    if (after > 0) {
+      conditions.add("u.userId > :after");
+    }
+    if (emailId != null) {
+      conditions.add("u.emailId = :emailId");
+    }
+    if (phoneNumber != null) {
+      conditions.add("u.phoneNumber = :phoneNumber");
+    }
+    if (lastName != null) {
+      // '!' needs no escaping inside the SQL literal, a backslash would escape the closing quote on MySQL
+      conditions.add("u.lastName like :lastName escape '!'");
+    }
+    String jpql = "select new com.microservicecrud.dto.UserDto(u.userId, u.version, u.firstName, u.lastName, u.phoneNumber, u.address, u.emailId) " +
+      "from User u " + (conditions.isEmpty() ? "" : "where " + String.join(" and ", conditions) + " ") + "order by u.userId";
+
+    TypedQuery<UserDto> query = entityManager.createQuery(jpql, UserDto.class)
+      .setMaxResults(limit);
+    if (after > 0) {
+      query.setParameter("after", after);
+    }
+    if (emailId != null) {
+      query.setParameter("emailId", emailId);
+    }
+    if (phoneNumber != null) {
+      query.setParameter("phoneNumber", phoneNumber);
+    }
+    if (lastName != null) {
+      query.setParameter("lastName", escapeLike(lastName) + "%");
+    }
+    return query.getResultList();
+  }
+
+  @Override
+  public Optional<User> findForUpdate(long userId) {
+    if (entityManager.getEntityManagerFactory().getCache().contains(User.class, userId)) {
+      return Optional.ofNullable(entityManager.find(User.class, userId));
+    }
+    // one row per account, all of them the same user
+    List<User> users = entityManager.createQuery("select u from User u left join fetch u.accounts where u.userId = :userId", User.class)
+      .setParameter("userId", userId)
+      .getResultList();
+    return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+  }
+}
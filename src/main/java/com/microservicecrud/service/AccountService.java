@@ -0,0 +1,70 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.CacheConfig;
+import com.microservicecrud.config.MetricsConfig;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.AccountStatsDto;
+import com.microservicecrud.model.UserChange;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
+import com.microservicecrud.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Transactional
+@Service
+public class AccountService {
+
+  @Autowired
+  AccountRepository accountRepository;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  UserChangeRepository userChangeRepository;
+
+  /**
+   * Adds the delta to the balance of the account with one UPDATE, without reading the account first, and
+   * returns the account as it is after the adjustment. The owner's version is incremented so its ETag changes
+   * with the balance, and the owner's change is recorded in the outbox. Returns null when the account does not
+   * exist and throws {@link InsufficientBalanceException} when {@code nonNegative} is set and the balance would drop
+   * below zero.
+   */
+  @Timed(value = MetricsConfig.ACCOUNT_SERVICE_TIMER, histogram = true)
+  @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#result.userId", condition = "#result != null")
+  public AccountDto adjustBalance(long accountId, float delta, boolean nonNegative) {
+    int updated = nonNegative
+      ? accountRepository.adjustBalanceNotBelowZero(accountId, delta)
+      : accountRepository.adjustBalance(accountId, delta);
+    Optional<AccountDto> account = accountRepository.findDtoByAccountId(accountId);
+    if (!account.isPresent()) {
+      return null;
+    }
+    if (updated == 0) {
+      throw new InsufficientBalanceException(accountId);
+    }
+    userRepository.incrementVersion(account.get().getUserId());
+    userChangeRepository.recordChanges(Collections.singletonList(account.get().getUserId()), UserChange.UPDATE);
+    return account.get();
+  }
+
+  /**
+   * Balance statistics per account type for the users with ids in the given range, both ends included.
+   * Results are cached per range for the short TTL of the account stats cache, so polling dashboards
+   * share one aggregation.
+   */
+  @Timed(value = MetricsConfig.ACCOUNT_SERVICE_TIMER, histogram = true)
+  @Transactional(readOnly = true)
+  @Cacheable(cacheNames = CacheConfig.ACCOUNT_STATS_CACHE)
+  public List<AccountStatsDto> findStats(long fromUserId, long toUserId) {
+    return accountRepository.findStatsByUserIdBetween(fromUserId, toUserId);
+  }
+}
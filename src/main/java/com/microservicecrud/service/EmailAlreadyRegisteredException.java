@@ -0,0 +1,11 @@
+package com.microservicecrud.service;
+
+/**
+ * Thrown by {@link UserService} when an update would give a user an email id that already belongs to another user.
+ */
+public class EmailAlreadyRegisteredException extends RuntimeException {
+
+  public EmailAlreadyRegisteredException(String emailId) {
+    super("Email id " + emailId + " is already registered.");
+  }
+}
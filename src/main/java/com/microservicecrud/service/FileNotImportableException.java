@@ -0,0 +1,12 @@
+package com.microservicecrud.service;
+
+/**
+ * Thrown by {@link UserImportService} when the named file is not in the import directory or has a format it cannot
+ * read. The message is meant for the client.
+ */
+public class FileNotImportableException extends RuntimeException {
+
+  public FileNotImportableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,37 @@
+package com.microservicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservicecrud.dto.UserChangeDto;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every published change as one JSON line to a local file, for trying out the relay without a broker.
+ */
+public class FileUserChangeSink implements UserChangeSink {
+
+  private final Path file;
+
+  private final ObjectMapper objectMapper;
+
+  public FileUserChangeSink(Path file, ObjectMapper objectMapper) {
+    this.file = file;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public synchronized void publish(List<UserChangeDto> changes) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+      StandardOpenOption.APPEND)) {
+      for (UserChangeDto change : changes) {
+        writer.write(objectMapper.writeValueAsString(change));
+        writer.newLine();
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.microservicecrud.service;
+
+/**
+ * Thrown by {@link UserImportService} when an import is to be resumed that completed or is still running on this
+ * instance. The message is meant for the client.
+ */
+public class ImportNotResumableException extends RuntimeException {
+
+  public ImportNotResumableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.microservicecrud.service;
+
+/**
+ * Thrown by {@link AccountService} when a guarded adjustment would drop the balance of an account below zero.
+ */
+public class InsufficientBalanceException extends RuntimeException {
+
+  public InsufficientBalanceException(long accountId) {
+    super("The balance of account " + accountId + " must not drop below zero.");
+  }
+}
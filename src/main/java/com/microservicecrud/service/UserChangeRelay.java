@@ -0,0 +1,68 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.dto.UserChangePageDto;
+import com.microservicecrud.model.UserChangeRelayPosition;
+import com.microservicecrud.repository.UserChangeRelayPositionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Publishes the changes recorded in the outbox to the {@link UserChangeSink}, at most
+ * {@code user.changes.relay.batch-size} every {@code user.changes.relay.interval} milliseconds, in feed order. The
+ * {@link UserChangeSequencer} runs first, so committed changes are not held back until its next run. A batch is read,
+ * published and its position stored in one transaction that holds the row lock on the relay position, so two
+ * instances never publish at the same time. Delivery is at least once: when storing the position fails after the
+ * sink took the batch, the batch is published again, and consumers skip change ids they have already seen.
+ */
+public class UserChangeRelay {
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  UserChangeSequencer sequencer;
+
+  @Autowired
+  UserChangeRelayPositionRepository positionRepository;
+
+  @Autowired
+  UserChangeSink sink;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Value("${user.changes.relay.batch-size:1000}")
+  int batchSize;
+
+  @Scheduled(fixedDelayString = "${user.changes.relay.interval:1000}")
+  public void relay() {
+    publishBatch();
+  }
+
+  /**
+   * Publishes the changes after the stored position and moves the position past them. Returns the number of
+   * changes handed to the sink.
+   */
+  public int publishBatch() {
+    sequencer.sequence();
+    return transactionTemplate.execute(status -> {
+      UserChangeRelayPosition position = positionRepository.findForUpdate(UserChangeRelayPosition.DEFAULT_RELAY)
+        .orElseThrow(() -> new IllegalStateException("The position of the change relay is missing."));
+      UserChangePageDto page = userService.findChanges(position.getLastPosition(), batchSize);
+      if (page.getChanges().isEmpty()) {
+        return 0;
+      }
+      try {
+        sink.publish(page.getChanges());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      position.setLastPosition(page.getNextSince());
+      return page.getChanges().size();
+    });
+  }
+}
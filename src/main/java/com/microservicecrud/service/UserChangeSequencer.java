@@ -0,0 +1,62 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.model.UserChange;
+import com.microservicecrud.model.UserChangeFeed;
+import com.microservicecrud.repository.UserChangeFeedRepository;
+import com.microservicecrud.repository.UserChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+
+/**
+ * Assigns feed positions to committed {@link UserChange}s, every {@code user.changes.sequencer.interval}
+ * milliseconds and before each relay batch. Change ids are taken when a transaction writes, so a transaction that
+ * commits late adds ids below ones a reader may already have passed; positions are only handed out to changes
+ * that committed, always above the last one, so readers following the positions miss nothing however long the
+ * writing transaction took. A run holds the row lock on the feed, so two instances never assign the same
+ * positions.
+ */
+public class UserChangeSequencer {
+
+  @Autowired
+  UserChangeRepository userChangeRepository;
+
+  @Autowired
+  UserChangeFeedRepository feedRepository;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Value("${user.changes.sequencer.batch-size:1000}")
+  int batchSize;
+
+  @Scheduled(fixedDelayString = "${user.changes.sequencer.interval:200}")
+  public void sequence() {
+    while (sequenceBatch() == batchSize) {
+      // more changes are waiting
+    }
+  }
+
+  /**
+   * Assigns the next positions, in change order, to up to {@code user.changes.sequencer.batch-size} committed
+   * changes that have none yet. Returns the number of changes sequenced.
+   */
+  public int sequenceBatch() {
+    return transactionTemplate.execute(status -> {
+      UserChangeFeed feed = feedRepository.findForUpdate(UserChangeFeed.DEFAULT_FEED)
+        .orElseThrow(() -> new IllegalStateException("The position of the change feed is missing."));
+      List<Long> changeIds = userChangeRepository.findUnsequencedChangeIds(PageRequest.of(0, batchSize));
+      if (changeIds.isEmpty()) {
+        return 0;
+      }
+      // the ids ascend, shifted past the last position they stay ascending and unique
+      long offset = feed.getLastPosition() + 1 - changeIds.get(0);
+      userChangeRepository.assignFeedPositions(changeIds, offset);
+      feed.setLastPosition(changeIds.get(changeIds.size() - 1) + offset);
+      return changeIds.size();
+    });
+  }
+}
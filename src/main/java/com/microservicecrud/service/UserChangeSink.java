@@ -0,0 +1,14 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.dto.UserChangeDto;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination the {@link UserChangeRelay} publishes recorded user changes to. {@link #publish} must only return
+ * once the batch is stored; when it throws, the same changes are offered again on the next run.
+ */
+public interface UserChangeSink {
+
+  void publish(List<UserChangeDto> changes) throws IOException;
+}
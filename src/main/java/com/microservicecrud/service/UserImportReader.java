@@ -0,0 +1,223 @@
+package com.microservicecrud.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.UserImport;
+import org.springframework.util.StringUtils;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the users of an import file, holding only the user being read. NDJSON files carry one user with its
+ * accounts per line, like GET /api/users/export writes them. CSV files have a header row naming the columns
+ * firstName, lastName, phoneNumber, address, emailId, accountType and balance, and one row per account; the rows
+ * of a user follow each other and repeat its email id. A line, or a user with a row, that does not map, such as a
+ * phone number that is not a number, is returned as an {@link UnreadableUser} in its place and reading goes on
+ * after it.
+ */
+abstract class UserImportReader implements Iterator<UserDto>, Closeable {
+
+  private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+  static UserImportReader open(Path file, String format, ObjectMapper objectMapper) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    try {
+      if (UserImport.CSV.equals(format)) {
+        return new CsvReader(CSV_MAPPER.readerFor(CSV_MAPPER.getTypeFactory()
+          .constructMapType(Map.class, String.class, String.class))
+          .with(CsvSchema.emptySchema().withHeader())
+          .readValues(in));
+      }
+      return new NdjsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)),
+        objectMapper.readerFor(UserDto.class));
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  private static class NdjsonReader extends UserImportReader {
+
+    private final BufferedReader lines;
+
+    private final ObjectReader userReader;
+
+    /**
+     * Next line that is not blank, null once the file is read.
+     */
+    private String line;
+
+    NdjsonReader(BufferedReader lines, ObjectReader userReader) {
+      this.lines = lines;
+      this.userReader = userReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+      try {
+        while (line == null) {
+          line = lines.readLine();
+          if (line == null) {
+            return false;
+          }
+          if (line.trim().isEmpty()) {
+            line = null;
+          }
+        }
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public UserDto next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      String userLine = line;
+      line = null;
+      try {
+        return userReader.readValue(userLine);
+      } catch (JsonProcessingException e) {
+        return new UnreadableUser(e.getOriginalMessage());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      lines.close();
+    }
+  }
+
+  private static class CsvReader extends UserImportReader {
+
+    private static final String EMAIL_ID_COLUMN = "emailId";
+
+    private static final ObjectReader ROW_READER = CSV_MAPPER.readerFor(CsvRow.class)
+      .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final MappingIterator<Map<String, String>> rows;
+
+    /**
+     * First row of the next user, already read while looking for the end of the previous one.
+     */
+    private Map<String, String> pending;
+
+    CsvReader(MappingIterator<Map<String, String>> rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return pending != null || rows.hasNext();
+    }
+
+    /**
+     * Reads the rows of the next user as text and only then maps them, so a row that does not map still ends at
+     * the next email id and the whole user is returned as an {@link UnreadableUser}.
+     */
+    @Override
+    public UserDto next() {
+      Map<String, String> row = pending != null ? pending : rows.next();
+      pending = null;
+      if (row == null) {
+        throw new NoSuchElementException();
+      }
+      String emailId = row.get(EMAIL_ID_COLUMN);
+      List<Map<String, String>> userRows = new ArrayList<>();
+      userRows.add(row);
+      while (emailId != null && rows.hasNext()) {
+        Map<String, String> next = rows.next();
+        if (!emailId.equals(next.get(EMAIL_ID_COLUMN))) {
+          pending = next;
+          break;
+        }
+        userRows.add(next);
+      }
+      try {
+        return toUser(userRows);
+      } catch (JsonProcessingException e) {
+        return new UnreadableUser(e.getOriginalMessage());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static UserDto toUser(List<Map<String, String>> userRows) throws IOException {
+      UserDto userDto = null;
+      List<AccountDto> accounts = new ArrayList<>(userRows.size());
+      for (Map<String, String> userRow : userRows) {
+        CsvRow row = ROW_READER.readValue(CSV_MAPPER.<JsonNode>valueToTree(userRow));
+        if (userDto == null) {
+          userDto = new UserDto(row.firstName, row.lastName, row.phoneNumber, row.address, row.emailId);
+        }
+        if (StringUtils.hasLength(row.accountType) || row.balance != null) {
+          accounts.add(new AccountDto(null, row.balance, row.accountType, null));
+        }
+      }
+      userDto.setAccount(accounts);
+      return userDto;
+    }
+
+    @Override
+    public void close() throws IOException {
+      rows.close();
+    }
+  }
+
+  /**
+   * Stands in for a line or row that could not be mapped to a user, so it is rejected at its position.
+   */
+  static class UnreadableUser extends UserDto {
+
+    private final String error;
+
+    UnreadableUser(String error) {
+      this.error = error;
+    }
+
+    String getError() {
+      return error;
+    }
+  }
+
+  static class CsvRow {
+
+    public String firstName;
+
+    public String lastName;
+
+    public Long phoneNumber;
+
+    public String address;
+
+    public String emailId;
+
+    public String accountType;
+
+    public Float balance;
+  }
+}
@@ -0,0 +1,464 @@
+package com.microservicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserImportDto;
+import com.microservicecrud.model.AccountType;
+import com.microservicecrud.model.UserImport;
+import com.microservicecrud.model.UserImportChunk;
+import com.microservicecrud.repository.UserImportChunkRepository;
+import com.microservicecrud.repository.UserImportRepository;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+
+/**
+ * Imports users with their accounts from CSV and NDJSON files in {@code user.import.directory}. A reader thread
+ * streams the file with {@link UserImportReader} and cuts it into chunks of {@code user.import.chunk-size} users,
+ * which a pool of {@code user.import.workers} threads validates and saves, every chunk in a transaction of its own
+ * through {@link UserService#saveUsers(List)}. The transaction also saves the {@link UserImportChunk} checkpoint,
+ * so a resumed import reads the file again and skips exactly the chunks that were committed. At most two chunks
+ * per worker are held in memory, the reader waits while the workers are behind.
+ */
+@Service
+public class UserImportService {
+
+  private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+  static final String USER_FIELDS_REQUIRED_MESSAGE =
+    "First name, last name, phone number, address and email id are required.";
+
+  static final String ACCOUNT_REQUIRED_MESSAGE = "At least one account must be associated with user.";
+
+  static final String INVALID_ACCOUNT_TYPE_MESSAGE =
+    "Account type must be one of 'savings' and 'salaried' and every account needs a balance.";
+
+  static final String EMAIL_ALREADY_REGISTERED_MESSAGE = "A user with this email id is already registered.";
+
+  static final String UNREADABLE_USER_MESSAGE = "The record could not be read: ";
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  UserImportRepository importRepository;
+
+  @Autowired
+  UserImportChunkRepository chunkRepository;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Value("${user.import.directory:imports}")
+  Path directory;
+
+  @Value("${user.import.workers:4}")
+  int workers;
+
+  @Value("${user.import.chunk-size:1000}")
+  int chunkSize;
+
+  @Value("${user.import.max-chunk-attempts:3}")
+  int maxChunkAttempts;
+
+  /**
+   * Runs started by this instance, kept after they finished for their throughput.
+   */
+  private final Map<Long, Run> runs = new ConcurrentHashMap<>();
+
+  /**
+   * Starts importing the given file of the import directory and returns the import as it was started. Throws an
+   * {@link FileNotImportableException} when the file does not exist or is neither .csv nor .ndjson/.jsonl.
+   */
+  public UserImportDto startImport(String file) {
+    Path path = resolve(file);
+    UserImport userImport = new UserImport(path.toString(), formatOf(path), chunkSize);
+    return start(userImport);
+  }
+
+  /**
+   * Continues an import that failed or whose instance went down, with the chunk size it was started with.
+   * Returns null when the import does not exist and throws an {@link ImportNotResumableException} when it completed or
+   * is still running on this instance.
+   */
+  public UserImportDto resumeImport(long importId) {
+    Optional<UserImport> userImport = importRepository.findById(importId);
+    if (!userImport.isPresent()) {
+      return null;
+    }
+    if (UserImport.COMPLETED.equals(userImport.get().getStatus())) {
+      throw new ImportNotResumableException("Import " + importId + " is already completed.");
+    }
+    return start(userImport.get());
+  }
+
+  /**
+   * Starts the file, resumes its latest import when that did not complete, or leaves it alone when it did.
+   */
+  public UserImportDto importFile(String file) {
+    Optional<UserImport> latest = importRepository.findFirstByFileOrderByImportIdDesc(resolve(file).toString());
+    if (!latest.isPresent()) {
+      return startImport(file);
+    }
+    UserImport userImport = latest.get();
+    if (UserImport.COMPLETED.equals(userImport.getStatus()) || isRunning(userImport.getImportId())) {
+      log.info("Import {} of {} is {}, not starting it again", userImport.getImportId(), file, userImport.getStatus());
+      return report(userImport);
+    }
+    return start(userImport);
+  }
+
+  /**
+   * Returns the import with its committed totals, or null when it does not exist.
+   */
+  public UserImportDto findImport(long importId) {
+    return importRepository.findById(importId).map(this::report).orElse(null);
+  }
+
+  private synchronized UserImportDto start(UserImport userImport) {
+    if (userImport.getImportId() != 0 && isRunning(userImport.getImportId())) {
+      throw new ImportNotResumableException("Import " + userImport.getImportId() + " is already running.");
+    }
+    userImport.setStatus(UserImport.RUNNING);
+    userImport.setMessage(null);
+    userImport.setStartedAt(Instant.now());
+    userImport.setFinishedAt(null);
+    UserImport started = importRepository.save(userImport);
+
+    Run run = new Run();
+    run.reader = new Thread(() -> run(started, run), "user-import-" + started.getImportId());
+    runs.put(started.getImportId(), run);
+    run.reader.start();
+    log.info("Import {} of {} started with {} workers", started.getImportId(), started.getFile(), workers);
+    return report(started);
+  }
+
+  /**
+   * Reads the file and hands the chunks that were not committed before to the workers, then records how the run
+   * ended once the last chunk is done.
+   */
+  private void run(UserImport userImport, Run run) {
+    long importId = userImport.getImportId();
+    ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+      Thread thread = new Thread(runnable, "user-import-" + importId + "-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    Semaphore inFlight = new Semaphore(workers * 2);
+
+    try (UserImportReader reader = UserImportReader.open(Paths.get(userImport.getFile()), userImport.getFormat(),
+      objectMapper)) {
+      BitSet committed = new BitSet();
+      for (Long committedChunk : chunkRepository.findChunkNosByImportId(importId)) {
+        committed.set(Math.toIntExact(committedChunk));
+      }
+      int chunkNo = 0;
+      List<UserDto> chunk = new ArrayList<>(userImport.getChunkSize());
+      while (run.failure == null && reader.hasNext()) {
+        UserDto userDto = reader.next();
+        if (committed.get(chunkNo)) {
+          chunk.clear();
+        } else {
+          chunk.add(userDto);
+        }
+        if (++run.readUsers % userImport.getChunkSize() == 0) {
+          submit(executor, inFlight, run, importId, chunkNo, chunk);
+          chunk = new ArrayList<>(userImport.getChunkSize());
+          chunkNo++;
+        }
+      }
+      if (run.failure == null && !chunk.isEmpty()) {
+        submit(executor, inFlight, run, importId, chunkNo, chunk);
+      }
+    } catch (Exception e) {
+      run.fail(e);
+    } finally {
+      executor.shutdown();
+      awaitWorkers(executor, run);
+    }
+    finish(userImport, run);
+  }
+
+  private void submit(ExecutorService executor, Semaphore inFlight, Run run, long importId, long chunkNo,
+                      List<UserDto> chunk) throws InterruptedException {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    long firstUser = run.readUsers - chunk.size() + 1;
+    inFlight.acquire();
+    executor.execute(() -> {
+      try {
+        if (run.failure == null) {
+          importChunk(importId, chunkNo, firstUser, chunk, run);
+        }
+      } catch (RuntimeException e) {
+        run.fail(e);
+      } finally {
+        inFlight.release();
+      }
+    });
+  }
+
+  /**
+   * Commits the chunk, retrying when another chunk took an email id of it in the meantime; the retry sees that
+   * user and rejects the duplicate instead.
+   */
+  void importChunk(long importId, long chunkNo, long firstUser, List<UserDto> chunk, Run run) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        List<String> rejections = new ArrayList<>();
+        UserImportChunk committed = transactionTemplate.execute(status ->
+          commitChunk(importId, chunkNo, firstUser, chunk, rejections));
+        if (committed != null) {
+          rejections.forEach(rejection -> log.warn("Import {} rejected user {}", importId, rejection));
+          run.committed(committed);
+        }
+        return;
+      } catch (RuntimeException e) {
+        if (attempt >= maxChunkAttempts || !isConstraintViolation(e)) {
+          throw e;
+        }
+        log.info("Import {} retries chunk {} after a constraint violation: {}", importId, chunkNo, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Saves the valid users of the chunk and its checkpoint, or nothing when the chunk was committed already.
+   * Imported users are not put into the second-level cache, they would only push out the users being served.
+   */
+  private UserImportChunk commitChunk(long importId, long chunkNo, long firstUser, List<UserDto> chunk,
+                                      List<String> rejections) {
+    if (chunkRepository.existsByImportIdAndChunkNo(importId, chunkNo)) {
+      return null;
+    }
+    entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+
+    Set<String> emailIds = new HashSet<>();
+    for (UserDto userDto : chunk) {
+      emailIds.add(userDto.getEmailId());
+    }
+    emailIds.remove(null);
+    Set<String> takenEmailIds = new HashSet<>(userService.findRegisteredEmailIds(emailIds));
+
+    List<UserDto> validUsers = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      UserDto userDto = chunk.get(i);
+      String error = validate(userDto);
+      if (error == null && !takenEmailIds.add(userDto.getEmailId())) {
+        error = EMAIL_ALREADY_REGISTERED_MESSAGE;
+      }
+      if (error != null) {
+        rejections.add((firstUser + i) + ": " + error);
+      } else {
+        validUsers.add(userDto);
+      }
+    }
+    if (!validUsers.isEmpty()) {
+      userService.saveUsers(validUsers);
+    }
+    return chunkRepository.save(new UserImportChunk(importId, chunkNo, validUsers.size(),
+      chunk.size() - validUsers.size(), Instant.now()));
+  }
+
+  /**
+   * Returns the message for the first rule the user breaks, or null when it can be imported.
+   */
+  static String validate(UserDto userDto) {
+    if (userDto instanceof UserImportReader.UnreadableUser) {
+      return UNREADABLE_USER_MESSAGE + ((UserImportReader.UnreadableUser) userDto).getError();
+    }
+    if (!StringUtils.hasText(userDto.getFirstName()) || !StringUtils.hasText(userDto.getLastName())
+      || userDto.getPhoneNumber() == null || !StringUtils.hasText(userDto.getAddress())
+      || !StringUtils.hasText(userDto.getEmailId())) {
+      return USER_FIELDS_REQUIRED_MESSAGE;
+    }
+    if (CollectionUtils.isEmpty(userDto.getAccount())) {
+      return ACCOUNT_REQUIRED_MESSAGE;
+    }
+    for (AccountDto account : userDto.getAccount()) {
+      if (!AccountType.isSupported(account.getAccountType()) || account.getBalance() == null) {
+        return INVALID_ACCOUNT_TYPE_MESSAGE;
+      }
+    }
+    return null;
+  }
+
+  private void finish(UserImport userImport, Run run) {
+    run.finishedNanos = System.nanoTime();
+    userImport.setFinishedAt(Instant.now());
+    if (run.failure == null) {
+      userImport.setStatus(UserImport.COMPLETED);
+    } else {
+      userImport.setStatus(UserImport.FAILED);
+      String message = String.valueOf(run.failure.getMessage());
+      userImport.setMessage(message.length() > 1024 ? message.substring(0, 1024) : message);
+    }
+    try {
+      importRepository.save(userImport);
+    } finally {
+      run.finished = true;
+    }
+    log.info("Import {} {}: {} users imported, {} rejected in {} chunks, {} users/s", userImport.getImportId(),
+      userImport.getStatus(), run.importedUsers, run.rejectedUsers, run.committedChunks,
+      String.format("%.1f", run.usersPerSecond()), run.failure);
+  }
+
+  private static void awaitWorkers(ExecutorService executor, Run run) {
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.debug("Waiting for the workers of an import");
+      }
+    } catch (InterruptedException e) {
+      run.fail(e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean isRunning(long importId) {
+    Run run = runs.get(importId);
+    return run != null && !run.finished;
+  }
+
+  private UserImportDto report(UserImport userImport) {
+    UserImportDto importDto = chunkRepository.findTotalsByImportId(userImport.getImportId());
+    importDto.setImportId(userImport.getImportId());
+    importDto.setFile(userImport.getFile());
+    importDto.setFormat(userImport.getFormat());
+    importDto.setStatus(userImport.getStatus());
+    importDto.setMessage(userImport.getMessage());
+    importDto.setStartedAt(userImport.getStartedAt());
+    importDto.setFinishedAt(userImport.getFinishedAt());
+    Run run = runs.get(userImport.getImportId());
+    if (run != null) {
+      importDto.setUsersPerSecond(run.usersPerSecond());
+    }
+    return importDto;
+  }
+
+  private Path resolve(String file) {
+    Path root = directory.toAbsolutePath().normalize();
+    Path path = root.resolve(file).normalize();
+    if (!path.startsWith(root) || !Files.isRegularFile(path)) {
+      throw new FileNotImportableException("The file " + file + " does not exist in the import directory.");
+    }
+    return path;
+  }
+
+  private static String formatOf(Path path) {
+    String name = path.getFileName().toString().toLowerCase();
+    if (name.endsWith(".csv")) {
+      return UserImport.CSV;
+    }
+    if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+      return UserImport.NDJSON;
+    }
+    throw new FileNotImportableException("Only .csv, .ndjson and .jsonl files can be imported.");
+  }
+
+  private static boolean isConstraintViolation(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Stops reading the files of running imports and waits for their committing chunks, the imports are left
+   * FAILED and can be resumed.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    for (Run run : runs.values()) {
+      if (!run.finished) {
+        run.fail(new IllegalStateException("The application was shut down."));
+      }
+    }
+    for (Run run : runs.values()) {
+      run.reader.join(TimeUnit.SECONDS.toMillis(30));
+    }
+  }
+
+  /**
+   * Progress of one run of an import on this instance.
+   */
+  static class Run {
+
+    private final long startedNanos = System.nanoTime();
+
+    final AtomicLong importedUsers = new AtomicLong();
+
+    final AtomicLong rejectedUsers = new AtomicLong();
+
+    final AtomicInteger committedChunks = new AtomicInteger();
+
+    /**
+     * Users read from the file so far, only touched by the reader thread.
+     */
+    long readUsers;
+
+    volatile Throwable failure;
+
+    volatile boolean finished;
+
+    volatile long finishedNanos;
+
+    Thread reader;
+
+    void committed(UserImportChunk chunk) {
+      importedUsers.addAndGet(chunk.getImportedUsers());
+      rejectedUsers.addAndGet(chunk.getRejectedUsers());
+      committedChunks.incrementAndGet();
+    }
+
+    synchronized void fail(Throwable e) {
+      if (failure == null) {
+        failure = e;
+      }
+    }
+
+    double usersPerSecond() {
+      long end = finished ? finishedNanos : System.nanoTime();
+      double seconds = (end - startedNanos) / 1e9;
+      return seconds > 0 ? importedUsers.get() / seconds : 0;
+    }
+  }
+}
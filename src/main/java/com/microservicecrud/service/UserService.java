@@ -1,126 +1,474 @@
 package com.microservicecrud.service;
 
+import com.microservicecrud.config.CacheConfig;
+import com.microservicecrud.config.MetricsConfig;
 import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserChangeDto;
+import com.microservicecrud.dto.UserChangePageDto;
 import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.mapper.UserPatcher.UserPatch;
 import com.microservicecrud.model.Account;
 import com.microservicecrud.model.User;
+import com.microservicecrud.model.UserChange;
 import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
 import com.microservicecrud.repository.UserRepository;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import javax.transaction.Transactional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.OptimisticLockException;
 
 @Transactional
 @Service
 public class UserService {
 
+  static final int MAX_PAGE_SIZE = 1000;
+
   @Autowired
   UserRepository userRepository;
 
   @Autowired
   AccountRepository accountRepository;
 
-  public UserDto saveUser(UserDto userDto) {
-    User user = new User(userDto.getFirstName(), userDto.getLastName(), userDto.getPhoneNumber(),
-      userDto.getAddress(), userDto.getEmailId());
+  @Autowired
+  UserChangeRepository userChangeRepository;
 
-    List<Account> userAccount = getAccounts(userDto, user);
-    user.setAccounts(userAccount);
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  UserMapper userMapper;
+
+  @Autowired
+  UserPatcher userPatcher;
+
+  @Value("${user.export.slice-size:500}")
+  int exportSliceSize;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  int batchSize;
 
+  @Value("${user.delete.chunk-size:1000}")
+  int deleteChunkSize;
+
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#result.userId")
+  public UserDto saveUser(UserDto userDto) {
+    User user = newUser(userDto);
     userRepository.save(user);
+    userChangeRepository.recordChanges(Collections.singletonList(user.getUserId()), UserChange.CREATE);
+    userDto.setUserId(user.getUserId());
     return userDto;
   }
 
-  public UserDto updateUser(UserDto userDto, Long userId) {
-    Optional<User> optionalUser = userRepository.findById(userId);
+  /**
+   * Saves all users in one transaction and returns their ids in input order. The persistence context is
+   * flushed and cleared every {@code hibernate.jdbc.batch_size} users so each chunk goes out as JDBC
+   * insert batches, followed by one statement recording the chunk in the outbox, and the context does not grow
+   * with the input.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  public List<Long> saveUsers(List<UserDto> userDtos) {
+    List<Long> userIds = new ArrayList<>(userDtos.size());
+    for (UserDto userDto : userDtos) {
+      User user = newUser(userDto);
+      userRepository.save(user);
+      userIds.add(user.getUserId());
+
+      if (userIds.size() % batchSize == 0) {
+        flushCreated(userIds.subList(userIds.size() - batchSize, userIds.size()));
+      }
+    }
+    flushCreated(userIds.subList(userIds.size() - userIds.size() % batchSize, userIds.size()));
+    return userIds;
+  }
+
+  /**
+   * Replaces the given fields of the user and reconciles its accounts. When an expected version is given
+   * the user must still have it, otherwise an {@link OptimisticLockingFailureException} is thrown. A new email
+   * id that belongs to another user is rejected with an {@link EmailAlreadyRegisteredException}. Returns
+   * null when the user does not exist.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+  public UserDto updateUser(UserDto userDto, Long userId, Long expectedVersion) {
+    Optional<User> optionalUser = userRepository.findForUpdate(userId);
 
     if (optionalUser.isPresent()) {
       User existingUser = optionalUser.get();
+      checkVersion(existingUser, expectedVersion);
+      checkEmailId(existingUser, userDto.getEmailId());
+      long loadedVersion = existingUser.getVersion();
       existingUser.setFirstName(userDto.getFirstName() != null ? userDto.getFirstName() : existingUser.getFirstName());
       existingUser.setLastName(userDto.getLastName() != null ? userDto.getLastName() : existingUser.getLastName());
       existingUser.setPhoneNumber(userDto.getPhoneNumber() != null ? userDto.getPhoneNumber() : existingUser.getPhoneNumber());
       existingUser.setEmailId(userDto.getEmailId() != null ? userDto.getEmailId() : existingUser.getEmailId());
       existingUser.setAddress(userDto.getAddress() != null ? userDto.getAddress() : existingUser.getAddress());
 
-      List<AccountDto> accountDtoLst = userDto.getAccount();
-      List<Account> userAccount = getAccounts(userDto, existingUser);
-
-      List<Account> finalUserAccount = null;
-      if (accountDtoLst != null && accountDtoLst.size() > 0) {
-        finalUserAccount = new ArrayList<>();
-        for (Account acc : userAccount) {
-          Optional<Account> existingAcc = accountRepository.findById(acc.getAccountId());
-          if (existingAcc.isPresent()) {
-            Account account = existingAcc.get();
-            account.setAccountType(acc.getAccountType() != null ? acc.getAccountType() : account.getAccountType());
-            account.setBalance(acc.getBalance() != null ? acc.getBalance() : account.getBalance());
-            accountRepository.save(account);
-            finalUserAccount.add(account);
-          } else {
-            finalUserAccount.add(acc);
-          }
-
-        }
-
-      } else if (accountDtoLst != null && accountDtoLst.isEmpty()) {
-        accountRepository.deleteByUserUserId(userId);
-      } else if (CollectionUtils.isEmpty(finalUserAccount)) {
-        finalUserAccount = accountRepository.getAccountByUserUserId(userId);
+      if (userDto.getAccount() != null) {
+        reconcileAccounts(existingUser, userDto.getAccount());
       }
 
-      existingUser.setAccounts(finalUserAccount);
-      List<User> userList = new ArrayList<>();
+      flushWithVersion(existingUser, loadedVersion, userDto.getAccount() != null);
+      userChangeRepository.recordChanges(Collections.singletonList(userId), UserChange.UPDATE);
+      return userMapper.toDto(existingUser);
+    }
+    return null;
+  }
 
-      User updatedUser = userRepository.saveAndFlush(existingUser);
-      userList.add(updatedUser);
-      List<UserDto> userDtoList = convertEntityToDto(userList);
-      return userDtoList.get(0);
+  /**
+   * Applies a partial update. The body is checked before the user is loaded, then only the patched
+   * properties are set on the managed user and accounts, so the flush updates just the changed columns.
+   * The expected version and a new email id are checked like in {@link #updateUser}. Returns null when the user
+   * does not exist.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+  public UserDto patchUser(Long userId, Map<String, Object> fields, Long expectedVersion) {
+    UserPatch patch = userPatcher.prepare(fields);
+
+    Optional<User> optionalUser = userRepository.findForUpdate(userId);
+    if (optionalUser.isPresent()) {
+      User user = optionalUser.get();
+      checkVersion(user, expectedVersion);
+      checkEmailId(user, patch.getEmailId());
+      long loadedVersion = user.getVersion();
+      patch.applyTo(user);
+      flushWithVersion(user, loadedVersion, patch.touchesAccounts());
+      userChangeRepository.recordChanges(Collections.singletonList(userId), UserChange.UPDATE);
+      return userMapper.toDto(user);
     }
     return null;
   }
 
-  public User updateUserPartially(UserDto userDto) {
-    ModelMapper mapper = new ModelMapper();
-    User user = mapper.map(userDto, User.class);
-    return userRepository.save(user);
+  /**
+   * Deletes the user and its accounts with one statement each, without loading them. Returns false when
+   * no user had the id.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+  public boolean deleteUser(Long userId) {
+    List<Long> userIds = Collections.singletonList(userId);
+    userChangeRepository.recordChanges(userIds, UserChange.DELETE);
+    accountRepository.deleteByUserIdIn(userIds);
+    return userRepository.deleteByUserIdIn(userIds) > 0;
   }
 
-  public void deleteUser(Long userId) {
-    userRepository.deleteById(userId);
+  /**
+   * Deletes the given users and their accounts in one transaction, {@code user.delete.chunk-size} ids per
+   * pair of set-based statements. Returns the number of users that existed and were deleted. The whole
+   * users cache is cleared, evicting each id would cost more than refilling it.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+  public int deleteUsers(List<Long> userIds) {
+    int deleted = 0;
+    for (int from = 0; from < userIds.size(); from += deleteChunkSize) {
+      List<Long> chunk = userIds.subList(from, Math.min(from + deleteChunkSize, userIds.size()));
+      userChangeRepository.recordChanges(chunk, UserChange.DELETE);
+      accountRepository.deleteByUserIdIn(chunk);
+      deleted += userRepository.deleteByUserIdIn(chunk);
+    }
+    return deleted;
   }
 
+  /**
+   * Returns the current version of the user, or null when it does not exist. Cheaper than
+   * {@link #findUserById} when only the ETag is needed. Read on the primary like the If-Match check, a lagging
+   * replica would answer 304 for a version that was already replaced.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  public Long findVersion(Long userId) {
+    return userRepository.findVersionByUserId(userId).orElse(null);
+  }
+
+  /**
+   * Returns the user with its accounts, or null when it does not exist. The result is cached until a write
+   * of this instance evicts it after commit; callers get their own copy and may change it. A read that started
+   * before such a write can still fill the cache with the old row after the eviction, that entry then lives
+   * until it expires. Read on the primary, a lagging replica would put the row from before the write back into the
+   * cache, and with it an ETag no If-Match check accepts.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#userId", unless = "#result == null")
   public UserDto findUserById(Long userId) {
-    Optional op = userRepository.findById(userId);
-    List<User> userList = new ArrayList<>();
-    if (op.isPresent()) {
-      User user = (User) op.get();
-      userList.add(user);
-      return convertEntityToDto(userList).get(0);
+    Optional<UserDto> op = userRepository.findDtoByUserId(userId);
+    if (!op.isPresent()) {
+      return null;
+    }
+    UserDto userDto = op.get();
+    attachAccounts(Collections.singletonList(userDto));
+    return userDto;
+  }
+
+  /**
+   * Keyset page of users ordered by id, starting after the given cursor. One extra user is read to decide
+   * whether a next page exists, so no count query is needed. The page costs two statements, the user rows
+   * and the accounts of those users, both projected into DTOs without loading entities.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @Transactional(readOnly = true)
+  public UserPageDto findPage(Long after, int limit) {
+    int pageSize = pageSize(limit);
+    List<UserDto> users = userRepository.findDtosAfter(cursor(after), PageRequest.of(0, pageSize + 1));
+    return toPage(users, pageSize);
+  }
+
+  /**
+   * Keyset page like {@link #findPage}, restricted to users with the given email id, phone number and last
+   * name prefix. Null criteria are ignored, the others must all match.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @Transactional(readOnly = true)
+  public UserPageDto searchUsers(String emailId, Long phoneNumber, String lastName, Long after, int limit) {
+    int pageSize = pageSize(limit);
+    List<UserDto> users = userRepository.searchDtos(emailId, phoneNumber, lastName, cursor(after), pageSize + 1);
+    return toPage(users, pageSize);
+  }
+
+  /**
+   * Changes after the given feed position, in feed order, with the current state of each changed user.
+   * A user changed several times within the page is listed once, at its last change. Only changes the
+   * {@link UserChangeSequencer} has positioned are listed; it positions them after they committed, so a reader
+   * never passes a change that commits later.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @Transactional(readOnly = true)
+  public UserChangePageDto findChanges(long since, int limit) {
+    List<UserChange> changes = userChangeRepository.findAfter(since, PageRequest.of(0, pageSize(limit)));
+    if (changes.isEmpty()) {
+      return new UserChangePageDto(Collections.emptyList(), since);
+    }
+
+    Map<Long, UserChange> lastChanges = new LinkedHashMap<>(changes.size() * 2);
+    for (UserChange change : changes) {
+      lastChanges.remove(change.getUserId());
+      lastChanges.put(change.getUserId(), change);
+    }
+    List<UserDto> users = userRepository.findDtosByUserIdIn(lastChanges.keySet());
+    attachAccounts(users);
+    Map<Long, UserDto> usersById = new HashMap<>(users.size() * 2);
+    for (UserDto userDto : users) {
+      usersById.put(userDto.getUserId(), userDto);
+    }
+
+    List<UserChangeDto> changeDtos = new ArrayList<>(lastChanges.size());
+    for (UserChange change : lastChanges.values()) {
+      changeDtos.add(new UserChangeDto(change.getChangeId(), change.getFeedPosition(), change.getUserId(),
+        change.getChangeType(), change.getChangedAt(), usersById.get(change.getUserId())));
+    }
+    return new UserChangePageDto(changeDtos, changes.get(changes.size() - 1).getFeedPosition());
+  }
+
+  /**
+   * Returns the given email ids that already belong to a user. Checked on the primary, a lagging replica
+   * could miss a user that was just registered.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  public Set<String> findRegisteredEmailIds(Collection<String> emailIds) {
+    if (emailIds.isEmpty()) {
+      return Collections.emptySet();
+    }
+    return new HashSet<>(userRepository.findEmailIdsIn(emailIds));
+  }
+
+  /**
+   * Hands every user to the sink in id order. The users are streamed as DTOs and collected in slices of
+   * {@code user.export.slice-size}, whose accounts are read with one statement, so heap usage does not grow with
+   * the table and the export does not select the accounts of each user on its own.
+   */
+  @Timed(value = MetricsConfig.USER_SERVICE_TIMER, histogram = true)
+  @Transactional(readOnly = true)
+  public void exportUsers(Consumer<UserDto> sink) {
+    try (Stream<UserDto> users = userRepository.streamDtosByOrderByUserId()) {
+      List<UserDto> slice = new ArrayList<>(exportSliceSize);
+      Iterator<UserDto> iterator = users.iterator();
+      while (iterator.hasNext()) {
+        slice.add(iterator.next());
+        if (slice.size() == exportSliceSize || !iterator.hasNext()) {
+          attachAccounts(slice);
+          slice.forEach(sink);
+          slice.clear();
+        }
+      }
     }
-    return null;
   }
 
-  public List<UserDto> findAll() {
-    List<User> allUsers = userRepository.findAll();
-    return convertEntityToDto(allUsers);
+  private static int pageSize(int limit) {
+    return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
   }
 
-  private List<Account> getAccounts(UserDto userDto, User user) {
-    ModelMapper model = new ModelMapper();
+  private static long cursor(Long after) {
+    return after != null ? after : 0L;
+  }
+
+  /**
+   * Cuts the users read with one extra row down to the page and attaches their accounts.
+   */
+  private UserPageDto toPage(List<UserDto> users, int pageSize) {
+    Long nextCursor = null;
+    if (users.size() > pageSize) {
+      users = users.subList(0, pageSize);
+      nextCursor = users.get(pageSize - 1).getUserId();
+    }
+    attachAccounts(users);
+    return new UserPageDto(users, nextCursor);
+  }
+
+  /**
+   * Sets the accounts of the given users from a single projection query; users without accounts get an empty list.
+   */
+  private void attachAccounts(List<UserDto> users) {
+    if (users.isEmpty()) {
+      return;
+    }
+    Map<Long, UserDto> usersById = new HashMap<>(users.size() * 2);
+    for (UserDto userDto : users) {
+      userDto.setAccount(new ArrayList<>());
+      usersById.put(userDto.getUserId(), userDto);
+    }
+    for (AccountDto accountDto : accountRepository.findDtosByUserIdIn(usersById.keySet())) {
+      usersById.get(accountDto.getUserId()).getAccount().add(accountDto);
+    }
+  }
+
+  /**
+   * Sends the pending inserts of a chunk of new users, records their creation and clears the persistence context.
+   */
+  private void flushCreated(List<Long> userIds) {
+    entityManager.flush();
+    if (!userIds.isEmpty()) {
+      userChangeRepository.recordChanges(userIds, UserChange.CREATE);
+    }
+    entityManager.clear();
+  }
+
+  /**
+   * Compares the expected version with the loaded one. The user may come from this instance's second-level
+   * cache, which does not see writes of other instances until the entry expires. So on a mismatch the version is
+   * read from the database; when it differs from the loaded one the entry was stale, and the user and its
+   * accounts are read again, which also replaces the entry, before the versions are compared once more.
+   */
+  private void checkVersion(User user, Long expectedVersion) {
+    if (expectedVersion == null || user.getVersion() == expectedVersion) {
+      return;
+    }
+    Optional<Long> currentVersion = userRepository.findVersionByUserId(user.getUserId());
+    if (currentVersion.isPresent() && currentVersion.get() != user.getVersion()) {
+      entityManager.refresh(user);
+    }
+    if (user.getVersion() != expectedVersion) {
+      throw new ObjectOptimisticLockingFailureException(User.class, user.getUserId());
+    }
+  }
+
+  /**
+   * Rejects an email id that is about to replace the user's own and already belongs to someone else. Checked
+   * before anything is set on the user, so the query does not flush a half-applied update. A concurrent update
+   * can still take the email id in between, the unique constraint then fails the flush.
+   */
+  private void checkEmailId(User user, String emailId) {
+    if (emailId != null && !emailId.equals(user.getEmailId())
+      && !userRepository.findEmailIdsIn(Collections.singleton(emailId)).isEmpty()) {
+      throw new EmailAlreadyRegisteredException(emailId);
+    }
+  }
+
+  /**
+   * Flushes the changes of an update. Account rows carry no version of their own, so when the write touched
+   * accounts but left the user columns alone the user's version is incremented explicitly; either way every
+   * write moves the version exactly once. A concurrent writer makes the version check of either statement
+   * fail with an {@link OptimisticLockingFailureException}.
+   */
+  private void flushWithVersion(User user, long loadedVersion, boolean touchesAccounts) {
+    userRepository.flush();
+    if (touchesAccounts && user.getVersion() == loadedVersion) {
+      try {
+        entityManager.lock(user, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+      } catch (OptimisticLockException e) {
+        throw new ObjectOptimisticLockingFailureException(User.class, user.getUserId(), e);
+      }
+    }
+  }
+
+  private User newUser(UserDto userDto) {
+    User user = new User(userDto.getFirstName(), userDto.getLastName(), userDto.getPhoneNumber(),
+      userDto.getAddress(), userDto.getEmailId());
+
+    List<Account> userAccount = getAccounts(userDto, user);
+    user.setAccounts(userAccount);
+    return user;
+  }
+
+  /**
+   * Diffs the payload against the accounts that were loaded together with the user. Accounts with a known
+   * id are updated in place, the others are added, and an empty payload removes every account. Nothing
+   * is written here; the single flush in updateUser sends the inserts, updates and deletes as JDBC batches.
+   */
+  private void reconcileAccounts(User user, List<AccountDto> accountDtos) {
+    List<Account> accounts = user.getAccounts();
+    if (accounts == null) {
+      accounts = new ArrayList<>();
+      user.setAccounts(accounts);
+    }
+
+    if (accountDtos.isEmpty()) {
+      for (Account account : accounts) {
+        entityManager.remove(account);
+      }
+      accounts.clear();
+      return;
+    }
+
+    Map<Long, Account> existingAccounts = new HashMap<>(accounts.size() * 2);
+    for (Account account : accounts) {
+      existingAccounts.put(account.getAccountId(), account);
+    }
+
+    for (AccountDto accountDto : accountDtos) {
+      Account account = accountDto.getAccountId() != null ? existingAccounts.get(accountDto.getAccountId()) : null;
+      if (account != null) {
+        account.setAccountType(accountDto.getAccountType() != null ? accountDto.getAccountType() : account.getAccountType());
+        account.setBalance(accountDto.getBalance() != null ? accountDto.getBalance() : account.getBalance());
+      } else {
+        accounts.add(new Account(accountDto.getBalance(), accountDto.getAccountType(), user));
+      }
+    }
+  }
+
+  List<Account> getAccounts(UserDto userDto, User user) {
     List<AccountDto> userDtoAccounts = userDto.getAccount();
     List<Account> userAccount = new ArrayList<>();
 
     if (!CollectionUtils.isEmpty(userDtoAccounts)) {
       for (AccountDto accountDto : userDtoAccounts) {
-        Account account;
-        account = model.map(accountDto, Account.class);
-        account.setUser(user);
-        userAccount.add(account);
+        userAccount.add(userMapper.toEntity(accountDto, user));
       }
       List<Account> accounts = user.getAccounts();
 
@@ -134,32 +482,4 @@ public class UserService {
     }
     return userAccount;
   }
-
-  private List<UserDto> convertEntityToDto(List<User> allUsers) {
-    List<UserDto> userDtoList = new ArrayList<>();
-    if (!CollectionUtils.isEmpty(allUsers)) {
-
-      ModelMapper model = new ModelMapper();
-      ModelMapper model1 = new ModelMapper();
-
-      for (User user : allUsers) {
-        UserDto userDto;
-        List<AccountDto> accountDtos = new ArrayList<>();
-        userDto = model.map(user, UserDto.class);
-
-        List<Account> accounts = user.getAccounts();
-        if (!CollectionUtils.isEmpty(accounts)) {
-          for (Account account : accounts) {
-            model1.map(account, AccountDto.class);
-            accountDtos.add(model1.map(account, AccountDto.class));
-          }
-        }
-
-        userDto.setAccount(accountDtos);
-        userDtoList.add(userDto);
-      }
-    }
-    return userDtoList;
-  }
 }
-
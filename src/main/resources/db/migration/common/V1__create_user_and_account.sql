@@ -0,0 +1,24 @@
+-- user and account tables as they were created by ddl-auto=update; existing databases are baselined at 1
+create table user (
+  user_id bigint not null,
+  address varchar(255) not null,
+  email_id varchar(255) not null,
+  first_name varchar(255) not null,
+  last_name varchar(255) not null,
+  phone_number bigint not null,
+  primary key (user_id)
+);
+
+create table account (
+  account_id bigint not null,
+  account_type varchar(255) not null,
+  balance float not null,
+  user_id bigint,
+  primary key (account_id)
+);
+
+alter table user add constraint uk_user_email_id unique (email_id);
+create index idx_user_phone_number on user (phone_number);
+create index idx_user_last_name on user (last_name);
+
+alter table account add constraint fk_account_user foreign key (user_id) references user (user_id);
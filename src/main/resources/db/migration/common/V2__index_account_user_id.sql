@@ -0,0 +1,3 @@
+-- accounts are always read, deleted and ordered by owner; (user_id, account_id) serves the lookups and the
+-- ordering of the account projection, and MySQL uses it for the foreign key instead of an implicit index
+create index idx_account_user_id on account (user_id, account_id);
@@ -0,0 +1,3 @@
+-- optimistic locking version of a user, also moved when only its accounts change; it backs the ETag of
+-- GET /api/users/{id} and the If-Match check of PUT/PATCH
+alter table user add column version bigint not null default 0;
@@ -0,0 +1,18 @@
+-- outbox of user changes, written in the transaction of each create, update and delete and read back in
+-- change_id order by GET /api/users/changes and the change relay
+create table user_change (
+  change_id bigint not null auto_increment,
+  user_id bigint not null,
+  change_type varchar(16) not null,
+  changed_at datetime(3) not null,
+  primary key (change_id)
+);
+
+-- last change handed to the relay's sink; the row is locked while a batch is published, so only one
+-- instance relays at a time
+create table user_change_relay (
+  relay_id varchar(64) not null,
+  last_change_id bigint not null,
+  primary key (relay_id)
+);
+insert into user_change_relay values ('default', 0);
@@ -0,0 +1,26 @@
+-- bulk imports of user files; the file is cut into chunks of chunk_size users in file order
+create table user_import (
+  import_id bigint not null auto_increment,
+  file varchar(1024) not null,
+  format varchar(16) not null,
+  chunk_size int not null,
+  status varchar(16) not null,
+  message varchar(1024),
+  started_at datetime(3) not null,
+  finished_at datetime(3),
+  primary key (import_id)
+);
+
+-- checkpoint of each committed chunk, written in the transaction of its users; a resumed import skips the
+-- chunks listed here, the unique key keeps two instances from committing the same chunk
+create table user_import_chunk (
+  chunk_id bigint not null auto_increment,
+  import_id bigint not null,
+  chunk_no bigint not null,
+  imported_users int not null,
+  rejected_users int not null,
+  committed_at datetime(3) not null,
+  primary key (chunk_id)
+);
+alter table user_import_chunk add constraint uk_user_import_chunk unique (import_id, chunk_no);
+alter table user_import_chunk add constraint fk_user_import_chunk_import foreign key (import_id) references user_import (import_id);
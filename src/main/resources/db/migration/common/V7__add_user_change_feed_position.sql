@@ -0,0 +1,14 @@
+-- position of each change in the feed, assigned in order by the change sequencer once the change committed;
+-- change ids are taken when a transaction writes, so a long transaction commits ids below ones readers passed
+alter table user_change add column feed_position bigint;
+create unique index uk_user_change_feed_position on user_change (feed_position);
+-- changes recorded so far keep their change id as position, so the cursors of existing readers stay valid
+update user_change set feed_position = change_id;
+
+-- last position handed out; the row is locked while changes are sequenced, so only one instance assigns them
+create table user_change_feed (
+  feed_id varchar(64) not null,
+  last_position bigint not null,
+  primary key (feed_id)
+);
+insert into user_change_feed select 'default', coalesce(max(change_id), 0) from user_change;
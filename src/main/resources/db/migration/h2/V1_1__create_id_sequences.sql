@@ -0,0 +1,3 @@
+-- increments match allocationSize of the @SequenceGenerator mappings; skipped when a baselined database has them
+create sequence if not exists user_seq start with 1 increment by 50;
+create sequence if not exists account_seq start with 1 increment by 50;
@@ -0,0 +1,4 @@
+-- V1 creates these for new databases; added here for databases baselined at 1 that lack them
+alter table user add constraint if not exists uk_user_email_id unique (email_id);
+create index if not exists idx_user_phone_number on user (phone_number);
+create index if not exists idx_user_last_name on user (last_name);
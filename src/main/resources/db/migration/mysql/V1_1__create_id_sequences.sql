@@ -0,0 +1,10 @@
+-- MySQL has no sequences, Hibernate emulates user_seq and account_seq with single row tables. The pooled optimizer
+-- hands out the allocationSize (50) ids up to and including the value it reads, so the tables start 50 above the
+-- highest id already taken and a populated database gets new ids above its existing rows. Databases created by
+-- ddl-auto=update are baselined at 1 and may or may not have the tables, so they are only created and seeded
+-- when missing.
+create table if not exists user_seq (next_val bigint);
+insert into user_seq select coalesce(max(user_id), 0) + 50 from user where not exists (select 1 from user_seq);
+
+create table if not exists account_seq (next_val bigint);
+insert into account_seq select coalesce(max(account_id), 0) + 50 from account where not exists (select 1 from account_seq);
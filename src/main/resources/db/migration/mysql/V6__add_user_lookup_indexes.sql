@@ -0,0 +1,24 @@
+-- V1 creates these for new databases; a database created by ddl-auto=update is baselined at 1 and may lack them,
+-- depending on whether it ran before the search was added. MySQL has no "if not exists" for constraints and
+-- indexes, so each statement only runs when information_schema does not list the index yet. The unique
+-- constraint fails when the table already holds duplicate email ids, those have to be resolved first.
+set @ddl = if(exists(select 1 from information_schema.statistics
+    where table_schema = database() and table_name = 'user' and index_name = 'uk_user_email_id'),
+  'do 0', 'alter table user add constraint uk_user_email_id unique (email_id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(exists(select 1 from information_schema.statistics
+    where table_schema = database() and table_name = 'user' and index_name = 'idx_user_phone_number'),
+  'do 0', 'create index idx_user_phone_number on user (phone_number)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(exists(select 1 from information_schema.statistics
+    where table_schema = database() and table_name = 'user' and index_name = 'idx_user_last_name'),
+  'do 0', 'create index idx_user_last_name on user (last_name)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
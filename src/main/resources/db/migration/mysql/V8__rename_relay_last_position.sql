@@ -0,0 +1,2 @@
+-- the relay stores the feed position of the last change it published since V7, named like user_change_feed
+alter table user_change_relay change last_change_id last_position bigint not null;
@@ -0,0 +1,90 @@
+package com.microservicecrud.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+
+class ReplicaRoutingDataSourceTest {
+
+  private EmbeddedDatabase primary;
+
+  private EmbeddedDatabase replica;
+
+  private JdbcTemplate jdbcTemplate;
+
+  private TransactionTemplate readWrite;
+
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  public void setUp() {
+    primary = database(ReplicaRoutingDataSource.PRIMARY);
+    replica = database(ReplicaRoutingDataSource.REPLICA);
+    DataSource dataSource = DataSourceConfig.routingDataSource(primary, replica, Duration.ofMinutes(1));
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    primary.shutdown();
+    replica.shutdown();
+  }
+
+  @Test
+  void readOnlyTransactionsUseReplica() {
+    assertEquals(ReplicaRoutingDataSource.REPLICA, readOnly.execute(status -> currentDatabase()));
+  }
+
+  @Test
+  void readWriteTransactionsUsePrimary() {
+    assertEquals(ReplicaRoutingDataSource.PRIMARY, readWrite.execute(status -> currentDatabase()));
+  }
+
+  @Test
+  void statementsOutsideTransactionsUsePrimary() {
+    assertEquals(ReplicaRoutingDataSource.PRIMARY, currentDatabase());
+  }
+
+  @Test
+  void readOnlyTransactionsFallBackToPrimaryWhileReplicaIsDown() {
+    DataSource unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/replica");
+    DataSourceTransactionManager transactionManager =
+      new DataSourceTransactionManager(DataSourceConfig.routingDataSource(primary, unreachable, Duration.ofMinutes(1)));
+    jdbcTemplate = new JdbcTemplate(transactionManager.getDataSource());
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    assertEquals(ReplicaRoutingDataSource.PRIMARY, readOnly.execute(status -> currentDatabase()));
+    assertEquals(ReplicaRoutingDataSource.PRIMARY, readOnly.execute(status -> currentDatabase()));
+  }
+
+  private String currentDatabase() {
+    return jdbcTemplate.queryForObject("select name from node", String.class);
+  }
+
+  private static EmbeddedDatabase database(String name) {
+    EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+      .setType(EmbeddedDatabaseType.H2)
+      .setName(name)
+      .build();
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    jdbcTemplate.execute("create table node (name varchar(16))");
+    jdbcTemplate.update("insert into node (name) values (?)", name);
+    return database;
+  }
+}
@@ -0,0 +1,129 @@
+package com.microservicecrud.config;
+
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.service.UserService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link UserService} on the routing data source over two embedded databases, with the JPA transaction
+ * manager of the application. The replica is migrated but never replicated to, so a read shows which database
+ * served it. Every call commits on its own, like between requests.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserService.class, UserMapper.class, UserPatcher.class, HibernateCacheConfig.class, CacheConfig.class,
+  ReplicaRoutingJpaTest.DatabasesConfig.class})
+class ReplicaRoutingJpaTest {
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  CacheManager cacheManager;
+
+  @Autowired
+  @Qualifier("primaryDataSource")
+  DataSource primary;
+
+  @Autowired
+  @Qualifier("replicaDataSource")
+  DataSource replica;
+
+  @AfterEach
+  public void tearDown() {
+    for (DataSource dataSource : new DataSource[] {primary, replica}) {
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+      jdbcTemplate.update("delete from user_change");
+      jdbcTemplate.update("delete from account");
+      jdbcTemplate.update("delete from user");
+    }
+    cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+  }
+
+  @Test
+  void writesUsePrimaryAndReadOnlyReadsUseReplica() {
+    userService.saveUser(new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com"));
+
+    assertEquals(1, countUsers(primary));
+    assertEquals(0, countUsers(replica));
+    assertTrue(userService.findPage(null, 10).getUsers().isEmpty());
+  }
+
+  @Test
+  void etagAndCachedUserAreReadOnPrimaryWhileReplicaLags() {
+    long userId = userService.saveUser(new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com"))
+      .getUserId();
+    // the replica only caught up with the create
+    new JdbcTemplate(replica).update("insert into user (user_id, first_name, last_name, phone_number, address, " +
+      "email_id, version) values (?, 'Karan', 'shaha', 56565656555, 'Pune', 'karan@g.com', 0)", userId);
+    UserDto lastName = new UserDto();
+    lastName.setLastName("Shah");
+    long version = userService.updateUser(lastName, userId, 0L).getVersion();
+
+    assertEquals(version, userService.findVersion(userId).longValue());
+    assertEquals("Shah", userService.findUserById(userId).getLastName());
+    UserDto cached = userService.findUserById(userId);
+    assertEquals("Shah", cached.getLastName());
+    assertEquals(version, cached.getVersion());
+  }
+
+  private static int countUsers(DataSource dataSource) {
+    return new JdbcTemplate(dataSource).queryForObject("select count(*) from user", Integer.class);
+  }
+
+  @TestConfiguration
+  static class DatabasesConfig {
+
+    @Bean
+    @FlywayDataSource
+    EmbeddedDatabase primaryDataSource() {
+      return database();
+    }
+
+    @Bean
+    EmbeddedDatabase replicaDataSource() {
+      EmbeddedDatabase replica = database();
+      Flyway.configure().dataSource(replica)
+        .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+        .load().migrate();
+      return replica;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                          @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+      return DataSourceConfig.routingDataSource(primaryDataSource, replicaDataSource, Duration.ofMinutes(1));
+    }
+
+    private static EmbeddedDatabase database() {
+      return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+    }
+  }
+}
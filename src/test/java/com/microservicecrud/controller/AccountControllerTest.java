@@ -0,0 +1,115 @@
+package com.microservicecrud.controller;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.AccountStatsDto;
+import com.microservicecrud.service.AccountService;
+import com.microservicecrud.service.InsufficientBalanceException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(value = AccountController.class)
+class AccountControllerTest {
+
+  @MockBean
+  AccountService accountService;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void getAccountStats() throws Exception {
+    String uri = "http://localhost:8080/api/accounts/stats";
+    String jsonResponse = "[{\"accountType\":\"salaried\",\"count\":1,\"sum\":50.0,\"min\":50.0,\"max\":50.0,\"avg\":50.0}," +
+      "{\"accountType\":\"savings\",\"count\":2,\"sum\":300.0,\"min\":100.0,\"max\":200.0,\"avg\":150.0}]";
+
+    when(accountService.findStats(0L, Long.MAX_VALUE)).thenReturn(Arrays.asList(
+      new AccountStatsDto("salaried", 1L, 50.0, 50F, 50F, 50.0),
+      new AccountStatsDto("savings", 2L, 300.0, 100F, 200F, 150.0)));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals(jsonResponse, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void getAccountStatsForUserIdRange() throws Exception {
+    String uri = "http://localhost:8080/api/accounts/stats?fromUserId=10&toUserId=20";
+
+    when(accountService.findStats(10L, 20L)).thenReturn(Arrays.asList(new AccountStatsDto("savings", 1L, 5.0, 5F, 5F, 5.0)));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("[{\"accountType\":\"savings\",\"count\":1,\"sum\":5.0,\"min\":5.0,\"max\":5.0,\"avg\":5.0}]",
+      mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void getAccountStatsWithEmptyRange() throws Exception {
+    String uri = "http://localhost:8080/api/accounts/stats?fromUserId=20&toUserId=10";
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(400, mvcResult.getResponse().getStatus());
+    assertEquals("fromUserId must not be greater than toUserId.", mvcResult.getResponse().getContentAsString());
+    verify(accountService, never()).findStats(anyLong(), anyLong());
+  }
+
+  @Test
+  void adjustBalance() throws Exception {
+    String uri = "http://localhost:8080/api/accounts/7/balance-adjustments";
+
+    when(accountService.adjustBalance(7L, -25F, true)).thenReturn(new AccountDto(7L, 75F, "savings", 1L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("{\"delta\":-25,\"nonNegative\":true}")).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("{\"accountId\":7,\"balance\":75.0,\"accountType\":\"savings\"}", mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void adjustBalanceBelowZero() throws Exception {
+    String uri = "http://localhost:8080/api/accounts/7/balance-adjustments";
+    String respContent = "The balance of account 7 must not drop below zero.";
+
+    when(accountService.adjustBalance(7L, -500F, true)).thenThrow(new InsufficientBalanceException(7L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("{\"delta\":-500,\"nonNegative\":true}")).andReturn();
+
+    assertEquals(409, mvcResult.getResponse().getStatus());
+    assertEquals(respContent, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void adjustBalanceWithoutDelta() throws Exception {
+    String uri = "http://localhost:8080/api/accounts/7/balance-adjustments";
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("{}")).andReturn();
+
+    assertEquals(400, mvcResult.getResponse().getStatus());
+    assertEquals(AccountController.DELTA_REQUIRED_MESSAGE, mvcResult.getResponse().getContentAsString());
+    verify(accountService, never()).adjustBalance(anyLong(), anyFloat(), anyBoolean());
+  }
+}
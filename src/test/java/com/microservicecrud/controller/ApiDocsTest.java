@@ -0,0 +1,73 @@
+package com.microservicecrud.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microservicecrud.config.Swagger2Config;
+import com.microservicecrud.repository.UserRepository;
+import com.microservicecrud.service.AccountService;
+import com.microservicecrud.service.UserImportService;
+import com.microservicecrud.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.util.StreamUtils;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the API document served by the faststart profile is the one springfox builds from the controllers.
+ * {@code ./gradlew generateApiDocs} runs this test with {@code apiDocs.file} set, which rewrites the document
+ * instead.
+ */
+@WebMvcTest
+@Import(Swagger2Config.class)
+class ApiDocsTest {
+
+  @MockBean
+  UserService userService;
+
+  @MockBean
+  UserImportService userImportService;
+
+  @MockBean
+  AccountService accountService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Test
+  void staticApiDocsMatchControllers() throws Exception {
+    String json = mockMvc.perform(MockMvcRequestBuilders.get("/v2/api-docs")).andReturn().getResponse()
+      .getContentAsString();
+    ObjectNode apiDocs = (ObjectNode) objectMapper.readTree(json);
+    // the host is the one of the request, swagger-ui falls back to the host serving the document
+    apiDocs.remove("host");
+    String generated = objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValueAsString(apiDocs) + "\n";
+
+    String file = System.getProperty("apiDocs.file");
+    if (file != null) {
+      Files.write(Paths.get(file), generated.getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    try (InputStream in = new ClassPathResource(ApiDocsController.API_DOCS_RESOURCE).getInputStream()) {
+      assertEquals("API document is outdated, run ./gradlew generateApiDocs",
+        StreamUtils.copyToString(in, StandardCharsets.UTF_8), generated);
+    }
+  }
+}
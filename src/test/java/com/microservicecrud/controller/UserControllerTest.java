@@ -3,11 +3,24 @@ package com.microservicecrud.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserChangeDto;
+import com.microservicecrud.dto.UserChangePageDto;
 import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserImportDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.mapper.InvalidPatchException;
 import com.microservicecrud.model.Account;
 import com.microservicecrud.model.User;
+import com.microservicecrud.model.UserChange;
+import com.microservicecrud.model.UserImport;
+import com.microservicecrud.proto.UserPageProto;
 import com.microservicecrud.repository.UserRepository;
+import com.microservicecrud.service.EmailAlreadyRegisteredException;
+import com.microservicecrud.service.FileNotImportableException;
+import com.microservicecrud.service.ImportNotResumableException;
+import com.microservicecrud.service.UserImportService;
 import com.microservicecrud.service.UserService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.Before;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -15,18 +28,31 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -39,6 +65,9 @@ class UserControllerTest {
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  UserImportService userImportService;
+
   @Autowired
   private MockMvc mockMvc;
 
@@ -57,8 +86,8 @@ class UserControllerTest {
     List<UserDto> userDtoList = createUserDTODummyList();
     List<User> users = createUserDummyList();
 
-    String jsonResponse = "[{\"firstName\":\"Karan\",\"lastName\":\"shaha\",\"phoneNumber\":56565656555,\"address\":\"Pune\",\"emailId\":\"karan@g.com\",\"account\":[{\"accountId\":1,\"balance\":100.0,\"accountType\":\"savings\"}]}]";
-    when(userService.findAll()).thenReturn(userDtoList);
+    String jsonResponse = "{\"users\":[{\"firstName\":\"Karan\",\"lastName\":\"shaha\",\"phoneNumber\":56565656555,\"address\":\"Pune\",\"emailId\":\"karan@g.com\",\"account\":[{\"accountId\":1,\"balance\":100.0,\"accountType\":\"savings\"}]}],\"nextCursor\":null}";
+    when(userService.findPage(null, 100)).thenReturn(new UserPageDto(userDtoList, null));
     when(userRepository.findAll()).thenReturn(users);
 
     MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
@@ -69,6 +98,147 @@ class UserControllerTest {
 
   }
 
+  @Test
+  void getUserChanges() throws Exception {
+    UserDto userDto = createUserDTODummyList().get(0);
+    UserChangePageDto page = new UserChangePageDto(Arrays.asList(
+      new UserChangeDto(11L, 11L, 1L, UserChange.UPDATE, Instant.parse("2020-01-01T10:00:00Z"), userDto),
+      new UserChangeDto(12L, 12L, 2L, UserChange.DELETE, Instant.parse("2020-01-01T10:00:01Z"), null)), 12L);
+    when(userService.findChanges(10L, 50)).thenReturn(page);
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/users/changes")
+      .param("since", "10").param("limit", "50")
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    UserChangePageDto response = mapper.readValue(mvcResult.getResponse().getContentAsString(), UserChangePageDto.class);
+    assertEquals(12L, response.getNextSince());
+    assertEquals(2, response.getChanges().size());
+    assertEquals("karan@g.com", response.getChanges().get(0).getUser().getEmailId());
+    assertEquals(Instant.parse("2020-01-01T10:00:00Z"), response.getChanges().get(0).getChangedAt());
+    assertEquals(UserChange.DELETE, response.getChanges().get(1).getChangeType());
+    assertEquals(12L, response.getChanges().get(1).getPosition());
+  }
+
+  @Test
+  void startUserImport() throws Exception {
+    UserImportDto userImport = new UserImportDto(0L, 0L, 0L);
+    userImport.setImportId(3L);
+    userImport.setStatus(UserImport.RUNNING);
+    when(userImportService.startImport("users.ndjson")).thenReturn(userImport);
+    when(userImportService.startImport("users.txt")).thenThrow(new FileNotImportableException("unsupported"));
+
+    MvcResult started = mockMvc.perform(MockMvcRequestBuilders.post("/api/users/imports")
+      .param("file", "users.ndjson").accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+    MvcResult rejected = mockMvc.perform(MockMvcRequestBuilders.post("/api/users/imports")
+      .param("file", "users.txt").accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, started.getResponse().getStatus());
+    UserImportDto response = mapper.readValue(started.getResponse().getContentAsString(), UserImportDto.class);
+    assertEquals(3L, response.getImportId());
+    assertEquals(UserImport.RUNNING, response.getStatus());
+    assertEquals(400, rejected.getResponse().getStatus());
+    assertEquals("unsupported", rejected.getResponse().getContentAsString());
+  }
+
+  @Test
+  void resumeUserImportThatCompletedIsConflict() throws Exception {
+    when(userImportService.resumeImport(3L)).thenThrow(new ImportNotResumableException("Import 3 is already completed."));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/users/imports/3/resume")).andReturn();
+    MvcResult missing = mockMvc.perform(MockMvcRequestBuilders.get("/api/users/imports/4")).andReturn();
+
+    assertEquals(409, mvcResult.getResponse().getStatus());
+    assertEquals("Import 3 is already completed.", mvcResult.getResponse().getContentAsString());
+    assertEquals("Import not found for this id ::4", missing.getResponse().getContentAsString());
+  }
+
+  @Test
+  void getAllUsersIsJsonWhenAnyTypeIsAccepted() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+
+    when(userService.findPage(null, 100)).thenReturn(new UserPageDto(createUserDTODummyList(), null));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.ALL)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, mvcResult.getResponse().getContentType());
+  }
+
+  @Test
+  void getAllUsersAsSmile() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+
+    when(userService.findPage(null, 100)).thenReturn(new UserPageDto(createUserDTODummyList(), 1L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept("application/x-jackson-smile")).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("application/x-jackson-smile", mvcResult.getResponse().getContentType());
+    UserPageDto page = Jackson2ObjectMapperBuilder.smile().build()
+      .readValue(mvcResult.getResponse().getContentAsByteArray(), UserPageDto.class);
+    assertEquals("karan@g.com", page.getUsers().get(0).getEmailId());
+    assertEquals(Long.valueOf(1), page.getNextCursor());
+  }
+
+  @Test
+  void getUserByIdAsCbor() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+
+    when(userService.findUserById(1L)).thenReturn(createUserDTODummyList().get(0));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept("application/cbor")).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("application/cbor", mvcResult.getResponse().getContentType());
+    UserDto userDto = Jackson2ObjectMapperBuilder.cbor().build()
+      .readValue(mvcResult.getResponse().getContentAsByteArray(), UserDto.class);
+    assertEquals("karan@g.com", userDto.getEmailId());
+    assertEquals(Float.valueOf(100F), userDto.getAccount().get(0).getBalance());
+  }
+
+  @Test
+  void getAllUsersAsProtobuf() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+
+    when(userService.findPage(null, 100)).thenReturn(new UserPageDto(createUserDTODummyList(), 1L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept("application/x-protobuf")).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("application/x-protobuf", mvcResult.getResponse().getContentType());
+    UserPageProto page = UserPageProto.parseFrom(mvcResult.getResponse().getContentAsByteArray());
+    assertEquals("karan@g.com", page.getUsers(0).getEmailId());
+    assertEquals("savings", page.getUsers(0).getAccount(0).getAccountType());
+    assertEquals(1L, page.getNextCursor());
+  }
+
+  @Test
+  void exportUsers() throws Exception {
+    String uri = "http://localhost:8080/api/users/export";
+
+    String line = "{\"firstName\":\"Karan\",\"lastName\":\"shaha\",\"phoneNumber\":56565656555,\"address\":\"Pune\",\"emailId\":\"karan@g.com\",\"account\":[{\"accountId\":1,\"balance\":100.0,\"accountType\":\"savings\"}]}";
+    UserDto userDto = createUserDTODummyList().get(0);
+
+    doAnswer(invocation -> {
+      Consumer<UserDto> sink = invocation.getArgument(0);
+      sink.accept(userDto);
+      sink.accept(userDto);
+      return null;
+    }).when(userService).exportUsers(any());
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept("application/x-ndjson")).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("application/x-ndjson", mvcResult.getResponse().getContentType());
+    assertEquals(line + "\n" + line + "\n", mvcResult.getResponse().getContentAsString());
+  }
+
   @Test
   void getUserById() throws Exception {
     String uri = "http://localhost:8080/api/users/1";
@@ -88,6 +258,53 @@ class UserControllerTest {
 
   }
 
+  @Test
+  void getUserByIdReturnsVersionAsETag() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+    UserDto userDto = createUserDTODummyList().get(0);
+    userDto.setVersion(3);
+
+    when(userService.findUserById(1L)).thenReturn(userDto);
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("\"3\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void getUserByIdWithMatchingETagIsNotModified() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+
+    when(userService.findVersion(1L)).thenReturn(3L);
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(304, mvcResult.getResponse().getStatus());
+    assertEquals("", mvcResult.getResponse().getContentAsString());
+    verify(userService, never()).findUserById(any());
+  }
+
+  @Test
+  void getUserByIdWithStaleETagReturnsUser() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+    UserDto userDto = createUserDTODummyList().get(0);
+    userDto.setVersion(4);
+
+    when(userService.findVersion(1L)).thenReturn(4L);
+    when(userService.findUserById(1L)).thenReturn(userDto);
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("\"4\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
   @Test
   void getUserByIdNotValidUser() throws Exception {
     String uri = "http://localhost:8080/api/users/3";
@@ -145,6 +362,97 @@ class UserControllerTest {
     assertEquals(expContent, mvcResult.getResponse().getContentAsString());
   }
 
+  @Test
+  void createUsersReportsEachItem() throws Exception {
+    String uri = "http://localhost:8080/api/users/batch";
+    String respContent = "[{\"index\":0,\"status\":\"CREATED\",\"userId\":51,\"message\":null}," +
+      "{\"index\":1,\"status\":\"REJECTED\",\"userId\":null,\"message\":\"Please check the account type !! We do only support 'savings' and 'salaried' type of accounts.\"}," +
+      "{\"index\":2,\"status\":\"REJECTED\",\"userId\":null,\"message\":\"At least one account must be associated with user while creating user.\"}," +
+      "{\"index\":3,\"status\":\"CREATED\",\"userId\":52,\"message\":null}]";
+
+    List<UserDto> userDtos = new ArrayList<>();
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.get(1).getAccount().get(0).setAccountType("current");
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.get(2).setAccount(new ArrayList<>());
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.get(3).setEmailId("kk@g.com");
+
+    when(userService.saveUsers(any())).thenReturn(Arrays.asList(51L, 52L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content(mapper.writeValueAsString(userDtos))).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals(respContent, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void createUsersRejectsRegisteredAndRepeatedEmails() throws Exception {
+    String uri = "http://localhost:8080/api/users/batch";
+    String respContent = "[{\"index\":0,\"status\":\"REJECTED\",\"userId\":null,\"message\":\"A user with this email id is already registered.\"}," +
+      "{\"index\":1,\"status\":\"CREATED\",\"userId\":51,\"message\":null}," +
+      "{\"index\":2,\"status\":\"REJECTED\",\"userId\":null,\"message\":\"A user with this email id is already registered.\"}]";
+
+    List<UserDto> userDtos = new ArrayList<>();
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.get(1).setEmailId("kk@g.com");
+    userDtos.add(createUserDTODummyList().get(0));
+    userDtos.get(2).setEmailId("kk@g.com");
+
+    when(userService.findRegisteredEmailIds(any())).thenReturn(Collections.singleton("karan@g.com"));
+    when(userService.saveUsers(any())).thenReturn(Collections.singletonList(51L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content(mapper.writeValueAsString(userDtos))).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals(respContent, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void createUserWithRegisteredEmail() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+    UserDto userDto = createUserDTODummyList().get(0);
+
+    when(userService.findRegisteredEmailIds(Collections.singleton("karan@g.com"))).thenReturn(Collections.singleton("karan@g.com"));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content(mapper.writeValueAsString(userDto))).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("A user with this email id is already registered.", mvcResult.getResponse().getContentAsString());
+    verify(userService, never()).saveUser(any());
+  }
+
+  @Test
+  void searchUsers() throws Exception {
+    String uri = "http://localhost:8080/api/users/search?lastName=sha&limit=10";
+    String jsonResponse = "{\"users\":[{\"firstName\":\"Karan\",\"lastName\":\"shaha\",\"phoneNumber\":56565656555,\"address\":\"Pune\",\"emailId\":\"karan@g.com\",\"account\":[{\"accountId\":1,\"balance\":100.0,\"accountType\":\"savings\"}]}],\"nextCursor\":null}";
+
+    when(userService.searchUsers(null, null, "sha", null, 10)).thenReturn(new UserPageDto(createUserDTODummyList(), null));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals(jsonResponse, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void searchUsersWithoutCriteria() throws Exception {
+    String uri = "http://localhost:8080/api/users/search?emailId=&limit=10";
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(uri)
+      .accept(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(400, mvcResult.getResponse().getStatus());
+    assertEquals("Please pass at least one of emailId, phoneNumber or lastName.", mvcResult.getResponse().getContentAsString());
+    verify(userService, never()).searchUsers(any(), any(), any(), any(), eq(10));
+  }
+
   @Test
   void updateUser() throws Exception {
     String uri = "http://localhost:8080/api/users/0";
@@ -156,7 +464,7 @@ class UserControllerTest {
     //userDto.setUserId(1);
     String content = mapper.writeValueAsString(userDto);
 
-    when(userService.updateUser(any(UserDto.class), any(Long.class))).thenReturn(userDto);
+    when(userService.updateUser(any(UserDto.class), any(Long.class), isNull())).thenReturn(userDto);
 
     MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put(uri)
       .contentType(MediaType.APPLICATION_JSON_VALUE).content(content)).andReturn();
@@ -165,6 +473,36 @@ class UserControllerTest {
   }
 
 
+  @Test
+  void updateUserToRegisteredEmailConflicts() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+    UserDto userDto = createUserDTODummyList().get(0);
+
+    when(userService.updateUser(any(UserDto.class), eq(1L), isNull()))
+      .thenThrow(new EmailAlreadyRegisteredException("karan@g.com"));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content(mapper.writeValueAsString(userDto))).andReturn();
+
+    assertEquals(409, mvcResult.getResponse().getStatus());
+    assertEquals(UserController.EMAIL_ALREADY_REGISTERED_MESSAGE, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void createUserLosingEmailToConcurrentCreateConflicts() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+    UserDto userDto = createUserDTODummyList().get(0);
+
+    when(userService.saveUser(any(UserDto.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+      new ConstraintViolationException("duplicate", new SQLException(), "PUBLIC.UK_USER_EMAIL_ID_INDEX_2")));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content(mapper.writeValueAsString(userDto))).andReturn();
+
+    assertEquals(409, mvcResult.getResponse().getStatus());
+    assertEquals(UserController.EMAIL_ALREADY_REGISTERED_MESSAGE, mvcResult.getResponse().getContentAsString());
+  }
+
   @Test
   void updateUserForInvalidId() throws Exception {
     String uri = "http://localhost:8080/api/users/1";
@@ -183,7 +521,7 @@ class UserControllerTest {
   @Test
   void patchUser() throws Exception {
     String uri = "http://localhost:8080/api/users/1";
-    String respContent = "{\"userId\":0,\"firstName\":\"KK\",\"lastName\":\"SH\",\"phoneNumber\":56565656555,\"address\":\"Pune\",\"emailId\":\"karan@g.com\"}";
+    String respContent = "{\"firstName\":\"KK\",\"lastName\":\"SH\",\"phoneNumber\":56565656555,\"address\":\"Pune\",\"emailId\":\"karan@g.com\",\"account\":[{\"accountId\":1,\"balance\":100.0,\"accountType\":\"savings\"}]}";
 
     HashMap<Object, Object> req = new HashMap<>();
     req.put("firstName", "KK");
@@ -196,12 +534,11 @@ class UserControllerTest {
       e.printStackTrace();
     }
 
-    User user = new User("KK", "SH", 56565656555L, "Pune", "karan@g.com");
-    user.setUserId(0);
-
-    when(userService.findUserById(1L)).thenReturn(createUserDTODummyList().get(0));
+    UserDto patchedUser = createUserDTODummyList().get(0);
+    patchedUser.setFirstName("KK");
+    patchedUser.setLastName("SH");
 
-    when(userService.updateUserPartially(any(UserDto.class))).thenReturn(user);
+    when(userService.patchUser(eq(1L), any(), isNull())).thenReturn(patchedUser);
 
     MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.patch(uri)
       .contentType(MediaType.APPLICATION_JSON_VALUE).content(content)).andReturn();
@@ -211,6 +548,51 @@ class UserControllerTest {
 
   }
 
+  @Test
+  void patchUserWithStaleIfMatchFailsPrecondition() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+
+    when(userService.patchUser(eq(1L), any(), eq(3L))).thenThrow(new ObjectOptimisticLockingFailureException(User.class, 1L));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.patch(uri)
+      .header(HttpHeaders.IF_MATCH, "\"3\"")
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("{\"firstName\":\"KK\"}")).andReturn();
+
+    assertEquals(412, mvcResult.getResponse().getStatus());
+    assertEquals(UserController.VERSION_MISMATCH_MESSAGE, mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void updateUserWithIfMatchPassesVersionAndReturnsNewETag() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+    UserDto userDto = createUserDTODummyList().get(0);
+    String content = mapper.writeValueAsString(userDto);
+    userDto.setVersion(4);
+
+    when(userService.updateUser(any(UserDto.class), eq(1L), eq(3L))).thenReturn(userDto);
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put(uri)
+      .header(HttpHeaders.IF_MATCH, "\"3\"")
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content(content)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("\"4\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void patchUserWithUnknownField() throws Exception {
+    String uri = "http://localhost:8080/api/users/1";
+    String respContent = "Field 'nickName' cannot be patched.";
+
+    when(userService.patchUser(eq(1L), any(), isNull())).thenThrow(new InvalidPatchException(respContent));
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.patch(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("{\"nickName\":\"KK\"}")).andReturn();
+
+    assertEquals(400, mvcResult.getResponse().getStatus());
+    assertEquals(respContent, mvcResult.getResponse().getContentAsString());
+  }
+
   @Test
   void patchUserWithRandomIdThatDoesnotExist() throws Exception {
     String uri = "http://localhost:8080/api/users/12";
@@ -227,12 +609,7 @@ class UserControllerTest {
       e.printStackTrace();
     }
 
-    User user = new User("KK", "SH", 56565656555L, "Pune", "karan@g.com");
-    user.setUserId(0);
-
-    when(userService.findUserById(1L)).thenReturn(createUserDTODummyList().get(0));
-
-    when(userService.updateUserPartially(any(UserDto.class))).thenReturn(user);
+    when(userService.patchUser(eq(1L), any(), isNull())).thenReturn(createUserDTODummyList().get(0));
 
     MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.patch(uri)
       .contentType(MediaType.APPLICATION_JSON_VALUE).content(content)).andReturn();
@@ -246,6 +623,7 @@ class UserControllerTest {
   void deleteUser() throws Exception {
     String uri = "http://localhost:8080/api/users/10";
     String response = "User with id 10 deleted successfully.";
+    when(userService.deleteUser(10L)).thenReturn(true);
     MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete(uri)
       .contentType(MediaType.APPLICATION_JSON_VALUE)).andReturn();
 
@@ -253,6 +631,38 @@ class UserControllerTest {
     assertEquals(response, mvcResult.getResponse().getContentAsString());
   }
 
+  @Test
+  void deleteUserThatDoesNotExist() throws Exception {
+    String uri = "http://localhost:8080/api/users/11";
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE)).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("User you are trying to delete does not exist !", mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void deleteUsers() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+    when(userService.deleteUsers(Arrays.asList(1L, 2L, 3L))).thenReturn(2);
+
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("[1,2,3]")).andReturn();
+
+    assertEquals(200, mvcResult.getResponse().getStatus());
+    assertEquals("2 of 3 users deleted successfully.", mvcResult.getResponse().getContentAsString());
+  }
+
+  @Test
+  void deleteUsersWithoutIds() throws Exception {
+    String uri = "http://localhost:8080/api/users";
+    MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete(uri)
+      .contentType(MediaType.APPLICATION_JSON_VALUE).content("[]")).andReturn();
+
+    assertEquals(400, mvcResult.getResponse().getStatus());
+    assertEquals("Please pass the ids of the users to delete.", mvcResult.getResponse().getContentAsString());
+  }
+
   private List<UserDto> createUserDTODummyList() {
     UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
 
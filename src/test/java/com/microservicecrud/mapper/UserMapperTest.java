@@ -0,0 +1,124 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that {@link UserMapper} produces the same output as the ModelMapper based conversion it replaced.
+ */
+class UserMapperTest {
+
+  private final UserMapper userMapper = new UserMapper();
+
+  private final ModelMapper modelMapper = new ModelMapper();
+
+  @BeforeEach
+  public void setUp() {
+    // AccountDto.userId is only filled by the projection queries, ModelMapper would otherwise reject it as ambiguous
+    modelMapper.getConfiguration().setAmbiguityIgnored(true);
+  }
+
+  @Test
+  void userToDtoMatchesModelMapper() {
+    User user = createUser();
+
+    UserDto expected = modelMapper.map(user, UserDto.class);
+    List<AccountDto> accountDtos = new ArrayList<>();
+    for (Account account : user.getAccounts()) {
+      accountDtos.add(modelMapper.map(account, AccountDto.class));
+    }
+    expected.setAccount(accountDtos);
+
+    assertUserDtoEquals(expected, userMapper.toDto(user));
+  }
+
+  @Test
+  void userWithoutAccountsToDtoMatchesModelMapper() {
+    User user = createUser();
+    user.setAccounts(null);
+
+    UserDto expected = modelMapper.map(user, UserDto.class);
+    expected.setAccount(new ArrayList<>());
+
+    assertUserDtoEquals(expected, userMapper.toDto(user));
+  }
+
+  @Test
+  void accountToDtoMatchesModelMapper() {
+    Account account = createUser().getAccounts().get(1);
+
+    assertAccountDtoEquals(modelMapper.map(account, AccountDto.class), userMapper.toDto(account));
+  }
+
+  @Test
+  void accountDtoToEntityMatchesModelMapper() {
+    User user = createUser();
+    AccountDto accountDto = new AccountDto();
+    accountDto.setAccountId(7L);
+    accountDto.setBalance(250F);
+    accountDto.setAccountType("salaried");
+
+    assertAccountEquals(modelMapper.map(accountDto, Account.class), userMapper.toEntity(accountDto, user));
+
+    accountDto.setAccountId(null);
+    assertAccountEquals(modelMapper.map(accountDto, Account.class), userMapper.toEntity(accountDto, user));
+    assertEquals(user, userMapper.toEntity(accountDto, user).getUser());
+  }
+
+  @Test
+  void accountDtoWithoutValuesToEntityMatchesModelMapper() {
+    AccountDto accountDto = new AccountDto();
+
+    Account actual = userMapper.toEntity(accountDto, null);
+    assertAccountEquals(modelMapper.map(accountDto, Account.class), actual);
+    assertNull(actual.getBalance());
+  }
+
+  private void assertUserDtoEquals(UserDto expected, UserDto actual) {
+    assertEquals(expected.getUserId(), actual.getUserId());
+    assertEquals(expected.getFirstName(), actual.getFirstName());
+    assertEquals(expected.getLastName(), actual.getLastName());
+    assertEquals(expected.getPhoneNumber(), actual.getPhoneNumber());
+    assertEquals(expected.getAddress(), actual.getAddress());
+    assertEquals(expected.getEmailId(), actual.getEmailId());
+    assertEquals(expected.getAccount().size(), actual.getAccount().size());
+    for (int i = 0; i < expected.getAccount().size(); i++) {
+      assertAccountDtoEquals(expected.getAccount().get(i), actual.getAccount().get(i));
+    }
+  }
+
+  private void assertAccountDtoEquals(AccountDto expected, AccountDto actual) {
+    assertEquals(expected.getAccountId(), actual.getAccountId());
+    assertEquals(expected.getBalance(), actual.getBalance());
+    assertEquals(expected.getAccountType(), actual.getAccountType());
+  }
+
+  private void assertAccountEquals(Account expected, Account actual) {
+    assertEquals(expected.getAccountId(), actual.getAccountId());
+    assertEquals(expected.getBalance(), actual.getBalance());
+    assertEquals(expected.getAccountType(), actual.getAccountType());
+  }
+
+  private User createUser() {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    user.setUserId(3);
+
+    List<Account> accounts = new ArrayList<>();
+    accounts.add(new Account(100F, "savings", user));
+    accounts.add(new Account(2500.5F, "salaried", user));
+    accounts.get(0).setAccountId(11);
+    accounts.get(1).setAccountId(12);
+    user.setAccounts(accounts);
+    return user;
+  }
+}
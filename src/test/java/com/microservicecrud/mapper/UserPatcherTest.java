@@ -0,0 +1,102 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.mapper.UserPatcher.UserPatch;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserPatcherTest {
+
+  private final UserPatcher userPatcher = new UserPatcher();
+
+  @Test
+  void patchesOnlyGivenUserFields() {
+    User user = createUser();
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("firstName", "KK");
+    fields.put("phoneNumber", 42);
+
+    UserPatch patch = userPatcher.prepare(fields);
+    patch.applyTo(user);
+
+    assertFalse(patch.touchesAccounts());
+    assertEquals("KK", user.getFirstName());
+    assertEquals(Long.valueOf(42L), user.getPhoneNumber());
+    assertEquals("shaha", user.getLastName());
+  }
+
+  @Test
+  void patchesNestedAccount() {
+    User user = createUser();
+    Map<String, Object> accountPatch = new HashMap<>();
+    accountPatch.put("accountId", 12);
+    accountPatch.put("accountType", "savings");
+    accountPatch.put("balance", 10.5);
+
+    UserPatch patch = userPatcher.prepare(Collections.singletonMap("account", Collections.singletonList(accountPatch)));
+    patch.applyTo(user);
+
+    assertTrue(patch.touchesAccounts());
+    assertEquals("savings", user.getAccounts().get(1).getAccountType());
+    assertEquals(Float.valueOf(10.5F), user.getAccounts().get(1).getBalance());
+    assertEquals(Float.valueOf(100F), user.getAccounts().get(0).getBalance());
+  }
+
+  @Test
+  void rejectsUnknownField() {
+    assertThrows(InvalidPatchException.class,
+      () -> userPatcher.prepare(Collections.singletonMap("userId", 5)));
+  }
+
+  @Test
+  void rejectsWrongValueType() {
+    assertThrows(InvalidPatchException.class,
+      () -> userPatcher.prepare(Collections.singletonMap("phoneNumber", "not a number")));
+    assertThrows(InvalidPatchException.class,
+      () -> userPatcher.prepare(Collections.singletonMap("firstName", null)));
+  }
+
+  @Test
+  void rejectsUnsupportedAccountType() {
+    Map<String, Object> accountPatch = new HashMap<>();
+    accountPatch.put("accountId", 11);
+    accountPatch.put("accountType", "current");
+
+    assertThrows(InvalidPatchException.class,
+      () -> userPatcher.prepare(Collections.singletonMap("account", Collections.singletonList(accountPatch))));
+  }
+
+  @Test
+  void rejectsAccountOfAnotherUser() {
+    Map<String, Object> accountPatch = new HashMap<>();
+    accountPatch.put("accountId", 99);
+    accountPatch.put("balance", 1);
+
+    UserPatch patch = userPatcher.prepare(Collections.singletonMap("account", Collections.singletonList(accountPatch)));
+
+    assertThrows(InvalidPatchException.class, () -> patch.applyTo(createUser()));
+  }
+
+  private User createUser() {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    user.setUserId(3);
+
+    List<Account> accounts = new ArrayList<>();
+    accounts.add(new Account(100F, "savings", user));
+    accounts.add(new Account(2500F, "salaried", user));
+    accounts.get(0).setAccountId(11);
+    accounts.get(1).setAccountId(12);
+    user.setAccounts(accounts);
+    return user;
+  }
+}
@@ -0,0 +1,65 @@
+package com.microservicecrud.mapper;
+
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.proto.UserPageProto;
+import com.microservicecrud.proto.UserProto;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+class UserProtoMapperTest {
+
+  private final UserProtoMapper userProtoMapper = new UserProtoMapper();
+
+  @Test
+  void pageSurvivesEncodingAndDecoding() throws Exception {
+    UserPageDto page = new UserPageDto(Collections.singletonList(createUserDto()), 42L);
+
+    byte[] bytes = userProtoMapper.toProto(page).toByteArray();
+    UserPageDto decoded = userProtoMapper.toDto(UserPageProto.parseFrom(bytes));
+
+    assertEquals(Long.valueOf(42), decoded.getNextCursor());
+    assertEquals(1, decoded.getUsers().size());
+    UserDto userDto = decoded.getUsers().get(0);
+    assertEquals("Karan", userDto.getFirstName());
+    assertEquals("shaha", userDto.getLastName());
+    assertEquals(Long.valueOf(56565656555L), userDto.getPhoneNumber());
+    assertEquals("Pune", userDto.getAddress());
+    assertEquals("karan@g.com", userDto.getEmailId());
+    assertEquals(2, userDto.getAccount().size());
+    AccountDto accountDto = userDto.getAccount().get(1);
+    assertEquals(Long.valueOf(2), accountDto.getAccountId());
+    assertEquals(Float.valueOf(2500F), accountDto.getBalance());
+    assertEquals("salaried", accountDto.getAccountType());
+  }
+
+  @Test
+  void missingPropertiesStayUnset() {
+    UserDto userDto = new UserDto();
+    userDto.setEmailId("karan@g.com");
+
+    UserProto proto = userProtoMapper.toProto(userDto);
+    UserDto decoded = userProtoMapper.toDto(proto);
+
+    assertEquals("karan@g.com", decoded.getEmailId());
+    assertNull(decoded.getFirstName());
+    assertNull(decoded.getPhoneNumber());
+    assertEquals(0, decoded.getAccount().size());
+    assertNull(userProtoMapper.toDto(userProtoMapper.toProto(new UserPageDto(new ArrayList<>(), null))).getNextCursor());
+  }
+
+  private static UserDto createUserDto() {
+    UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    List<AccountDto> accounts = new ArrayList<>();
+    accounts.add(new AccountDto(1L, 100F, "savings", null));
+    accounts.add(new AccountDto(2L, 2500F, "salaried", null));
+    userDto.setAccount(accounts);
+    return userDto;
+  }
+}
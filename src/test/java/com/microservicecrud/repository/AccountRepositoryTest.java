@@ -0,0 +1,71 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.AccountStatsDto;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.Assert.assertEquals;
+
+@DataJpaTest
+@Import(HibernateCacheConfig.class)
+class AccountRepositoryTest {
+
+  @Autowired
+  TestEntityManager testEntityManager;
+
+  @Autowired
+  AccountRepository accountRepository;
+
+  private final List<Long> userIds = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    for (int i = 1; i <= 3; i++) {
+      User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan" + i + "@g.com");
+      List<Account> accounts = new ArrayList<>();
+      accounts.add(new Account(100F * i, "savings", user));
+      accounts.add(new Account(10F * i, "salaried", user));
+      user.setAccounts(accounts);
+      testEntityManager.persist(user);
+      userIds.add(user.getUserId());
+    }
+    testEntityManager.flush();
+    testEntityManager.clear();
+  }
+
+  @Test
+  void statsAreGroupedByAccountType() {
+    List<AccountStatsDto> stats = accountRepository.findStatsByUserIdBetween(0L, Long.MAX_VALUE);
+
+    assertEquals(2, stats.size());
+    AccountStatsDto salaried = stats.get(0);
+    assertEquals("salaried", salaried.getAccountType());
+    assertEquals(3, salaried.getCount());
+    assertEquals(60.0, salaried.getSum(), 0.001);
+    assertEquals(10F, salaried.getMin(), 0.001);
+    assertEquals(30F, salaried.getMax(), 0.001);
+    assertEquals(20.0, salaried.getAvg(), 0.001);
+
+    AccountStatsDto savings = stats.get(1);
+    assertEquals("savings", savings.getAccountType());
+    assertEquals(600.0, savings.getSum(), 0.001);
+  }
+
+  @Test
+  void statsAreLimitedToUserIdRange() {
+    List<AccountStatsDto> stats = accountRepository.findStatsByUserIdBetween(userIds.get(1), userIds.get(2));
+
+    assertEquals(2, stats.get(1).getCount());
+    assertEquals(500.0, stats.get(1).getSum(), 0.001);
+    assertEquals(200F, stats.get(1).getMin(), 0.001);
+  }
+}
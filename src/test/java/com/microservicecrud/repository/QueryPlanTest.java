@@ -0,0 +1,76 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs EXPLAIN for the statements behind the repository lookups on the schema built by the Flyway migrations
+ * and checks that each one seeks the intended index instead of scanning the table.
+ */
+@DataJpaTest
+@Import(HibernateCacheConfig.class)
+class QueryPlanTest {
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void setUp() {
+    // plans are cost based, so the tables need enough distinct rows for an index to beat a scan
+    List<Object[]> users = new ArrayList<>();
+    List<Object[]> accounts = new ArrayList<>();
+    for (long i = 1; i <= 1000; i++) {
+      users.add(new Object[]{i, "Pune", "karan" + i + "@g.com", "Karan", "name" + i, 9000000000L + i});
+      accounts.add(new Object[]{i, "savings", 100F, i});
+    }
+    jdbcTemplate.batchUpdate("insert into user (user_id, address, email_id, first_name, last_name, phone_number) " +
+      "values (?, ?, ?, ?, ?, ?)", users);
+    jdbcTemplate.batchUpdate("insert into account (account_id, account_type, balance, user_id) values (?, ?, ?, ?)", accounts);
+  }
+
+  @Test
+  void emailLookupUsesUniqueIndex() {
+    assertUsesIndex("select email_id from user where email_id in ('karan@g.com', 'kk@g.com')", "UK_USER_EMAIL_ID");
+  }
+
+  @Test
+  void phoneNumberLookupUsesIndex() {
+    assertUsesIndex("select user_id from user where phone_number = 9000000012 order by user_id",
+      "IDX_USER_PHONE_NUMBER");
+  }
+
+  @Test
+  void lastNamePrefixLookupUsesIndex() {
+    // the statement UserRepositoryCustomImpl.searchDtos runs for a last name prefix
+    assertUsesIndex("select user_id, version, first_name, last_name, phone_number, address, email_id from user " +
+      "where last_name like 'name12%' escape '!' order by user_id limit 11", "IDX_USER_LAST_NAME");
+  }
+
+  @Test
+  void accountsOfUsersUseUserIdIndex() {
+    assertUsesIndex("select account_id from account where user_id in (1, 2) order by user_id, account_id",
+      "IDX_ACCOUNT_USER_ID");
+    assertUsesIndex("select account_id from account where user_id = 1", "IDX_ACCOUNT_USER_ID");
+    // H2 keeps its own index for the foreign key and may pick either one, MySQL reuses idx_account_user_id for it
+    assertUsesIndex("delete from account where user_id = 1", "USER_ID = 1");
+  }
+
+  /**
+   * Checks that the plan names the expected index or index condition and has no table scan.
+   */
+  private void assertUsesIndex(String sql, String index) {
+    String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+    assertTrue(plan, plan.contains(index));
+    assertFalse(plan, plan.contains("tableScan"));
+  }
+}
@@ -0,0 +1,158 @@
+package com.microservicecrud.repository;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.persistence.PersistenceException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(HibernateCacheConfig.class)
+class UserRepositoryTest {
+
+  @Autowired
+  TestEntityManager testEntityManager;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  AccountRepository accountRepository;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  public void setUp() {
+    for (int i = 0; i < 20; i++) {
+      User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan" + i + "@g.com");
+      List<Account> accounts = new ArrayList<>();
+      accounts.add(new Account(100F, "savings", user));
+      accounts.add(new Account(200F, "salaried", user));
+      user.setAccounts(accounts);
+      testEntityManager.persist(user);
+    }
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+      .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void listingUserAndAccountProjectionsLoadsNoEntities() {
+    List<UserDto> users = userRepository.findDtosAfter(0L, PageRequest.of(0, 20));
+    List<Long> userIds = new ArrayList<>();
+    for (UserDto userDto : users) {
+      userIds.add(userDto.getUserId());
+    }
+    List<AccountDto> accounts = accountRepository.findDtosByUserIdIn(userIds);
+
+    assertEquals(20, users.size());
+    assertEquals("karan0@g.com", users.get(0).getEmailId());
+    assertEquals(40, accounts.size());
+    assertEquals(users.get(0).getUserId(), accounts.get(0).getUserId().longValue());
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void findDtoByUserIdLoadsNoEntities() {
+    long userId = userRepository.findDtosAfter(0L, PageRequest.of(0, 1)).get(0).getUserId();
+    statistics.clear();
+
+    UserDto userDto = userRepository.findDtoByUserId(userId).get();
+
+    assertEquals(userId, userDto.getUserId());
+    assertEquals("Pune", userDto.getAddress());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void searchDtosMatchesEveryGivenCriterion() {
+    User other = new User("Karan", "sh_rma", 9999L, "Pune", "karan20@g.com");
+    testEntityManager.persist(other);
+    testEntityManager.persist(new User("Karan", "d!souza", 9999L, "Pune", "karan21@g.com"));
+    testEntityManager.flush();
+
+    assertEquals(1, userRepository.searchDtos("karan7@g.com", null, null, 0L, 10).size());
+    assertEquals(2, userRepository.searchDtos(null, 9999L, null, 0L, 10).size());
+    assertEquals(21, userRepository.searchDtos(null, null, "sh", 0L, 30).size());
+    assertEquals(1, userRepository.searchDtos(null, null, "sh_", 0L, 30).size());
+    assertEquals(1, userRepository.searchDtos(null, null, "d!s", 0L, 30).size());
+    assertEquals(0, userRepository.searchDtos("karan7@g.com", 9999L, null, 0L, 10).size());
+
+    List<UserDto> firstPage = userRepository.searchDtos(null, 56565656555L, "sha", 0L, 5);
+    List<UserDto> secondPage = userRepository.searchDtos(null, 56565656555L, "sha", firstPage.get(4).getUserId(), 5);
+    assertEquals(5, secondPage.size());
+    assertTrue(secondPage.get(0).getUserId() > firstPage.get(4).getUserId());
+  }
+
+  @Test
+  void findEmailIdsInReturnsRegisteredOnes() {
+    List<String> emailIds = userRepository.findEmailIdsIn(Arrays.asList("karan3@g.com", "nobody@g.com"));
+
+    assertEquals(Collections.singletonList("karan3@g.com"), emailIds);
+  }
+
+  @Test
+  void duplicateEmailIsRejected() {
+    testEntityManager.persist(new User("Karan", "shaha", 56565656555L, "Pune", "karan3@g.com"));
+
+    assertThrows(PersistenceException.class, () -> testEntityManager.flush());
+  }
+
+  @Test
+  void duplicateEmailViolatesTheNamedConstraint() {
+    DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+      () -> userRepository.saveAndFlush(new User("Karan", "shaha", 56565656555L, "Pune", "karan3@g.com")));
+
+    // UserController recognises a lost email id by this name
+    String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+    assertTrue(constraintName.toLowerCase(Locale.ROOT).contains("uk_user_email_id"));
+  }
+
+  @Test
+  void findForUpdateOfUncachedUserTakesOneStatement() {
+    long userId = userRepository.findDtosAfter(0L, PageRequest.of(0, 1)).get(0).getUserId();
+    statistics.clear();
+
+    User user = userRepository.findForUpdate(userId).get();
+
+    assertEquals(2, user.getAccounts().size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void accountsAreBatchLoadedWhenNotFetched() {
+    List<User> users = userRepository.findAll();
+    for (User user : users) {
+      user.getAccounts().size();
+    }
+
+    assertEquals(20, users.size());
+    assertTrue(statistics.getPrepareStatementCount() <= 2);
+  }
+}
@@ -0,0 +1,141 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs balance adjustments against an embedded database from many threads. Every call commits on its own,
+ * so the adjustments really compete for the account row.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AccountService.class, HibernateCacheConfig.class})
+class AccountServiceJpaTest {
+
+  private static final int THREADS = 16;
+
+  private static final int ADJUSTMENTS = 4000;
+
+  @Autowired
+  AccountService accountService;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  AccountRepository accountRepository;
+
+  private long userId;
+
+  private long accountId;
+
+  @BeforeEach
+  public void setUp() {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    Account account = new Account(100F, "savings", user);
+    user.setAccounts(new ArrayList<>(Collections.singletonList(account)));
+    userRepository.save(user);
+    userId = user.getUserId();
+    accountId = account.getAccountId();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    accountRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void parallelAdjustmentsAreAllCounted() throws Exception {
+    List<Callable<AccountDto>> adjustments = new ArrayList<>(ADJUSTMENTS);
+    for (int i = 0; i < ADJUSTMENTS; i++) {
+      float delta = i % 2 == 0 ? 3F : -1F;
+      adjustments.add(() -> accountService.adjustBalance(accountId, delta, false));
+    }
+
+    runAll(adjustments);
+
+    // 2000 deposits of 3 and 2000 withdrawals of 1
+    assertEquals(4100F, accountRepository.findById(accountId).get().getBalance(), 0F);
+    assertEquals(ADJUSTMENTS, userRepository.findById(userId).get().getVersion());
+  }
+
+  @Test
+  void parallelWithdrawalsStopAtZero() throws Exception {
+    List<Callable<AccountDto>> withdrawals = new ArrayList<>(ADJUSTMENTS);
+    for (int i = 0; i < ADJUSTMENTS; i++) {
+      withdrawals.add(() -> {
+        try {
+          return accountService.adjustBalance(accountId, -1F, true);
+        } catch (InsufficientBalanceException e) {
+          return null;
+        }
+      });
+    }
+
+    int succeeded = 0;
+    for (AccountDto account : runAll(withdrawals)) {
+      if (account != null) {
+        succeeded++;
+      }
+    }
+
+    assertEquals(100, succeeded);
+    assertEquals(0F, accountRepository.findById(accountId).get().getBalance(), 0F);
+  }
+
+  @Test
+  void adjustmentReturnsNewBalance() {
+    AccountDto account = accountService.adjustBalance(accountId, 25.5F, false);
+
+    assertEquals(125.5F, account.getBalance(), 0F);
+    assertEquals(userId, account.getUserId().longValue());
+  }
+
+  @Test
+  void overdraftIsRefusedWithNonNegativeGuard() {
+    assertThrows(InsufficientBalanceException.class, () -> accountService.adjustBalance(accountId, -100.5F, true));
+    assertEquals(100F, accountRepository.findById(accountId).get().getBalance(), 0F);
+  }
+
+  @Test
+  void unknownAccountIsNotAdjusted() {
+    assertNull(accountService.adjustBalance(-1L, 10F, false));
+  }
+
+  private static List<AccountDto> runAll(List<Callable<AccountDto>> tasks) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<AccountDto> results = new ArrayList<>(tasks.size());
+      for (Future<AccountDto> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
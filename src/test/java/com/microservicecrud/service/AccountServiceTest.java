@@ -0,0 +1,60 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.CacheConfig;
+import com.microservicecrud.dto.AccountStatsDto;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
+import com.microservicecrud.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(value = AccountService.class)
+@Import(CacheConfig.class)
+class AccountServiceTest {
+
+  @Autowired
+  AccountService accountService;
+
+  @Autowired
+  CacheManager cacheManager;
+
+  @MockBean
+  AccountRepository accountRepository;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  UserChangeRepository userChangeRepository;
+
+  @BeforeEach
+  public void setUp() {
+    cacheManager.getCache(CacheConfig.ACCOUNT_STATS_CACHE).clear();
+  }
+
+  @Test
+  void findStatsIsServedFromCachePerRange() {
+    List<AccountStatsDto> stats = Collections.singletonList(new AccountStatsDto("savings", 2L, 300.0, 100F, 200F, 150.0));
+    when(accountRepository.findStatsByUserIdBetween(0L, Long.MAX_VALUE)).thenReturn(stats);
+
+    accountService.findStats(0L, Long.MAX_VALUE);
+    List<AccountStatsDto> actual = accountService.findStats(0L, Long.MAX_VALUE);
+    accountService.findStats(5L, 10L);
+
+    assertEquals(stats, actual);
+    verify(accountRepository, times(1)).findStatsByUserIdBetween(0L, Long.MAX_VALUE);
+    verify(accountRepository, times(1)).findStatsByUserIdBetween(5L, 10L);
+  }
+}
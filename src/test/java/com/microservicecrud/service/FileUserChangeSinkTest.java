@@ -0,0 +1,46 @@
+package com.microservicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.microservicecrud.dto.UserChangeDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.model.UserChange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+class FileUserChangeSinkTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  @Test
+  void appendsOneJsonLinePerChange(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("changes.ndjson");
+    FileUserChangeSink sink = new FileUserChangeSink(file, objectMapper);
+    UserDto user = new UserDto(1L, "Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+
+    sink.publish(Collections.singletonList(new UserChangeDto(7L, 7L, 1L, UserChange.CREATE, Instant.EPOCH, user)));
+    sink.publish(Arrays.asList(new UserChangeDto(8L, 8L, 1L, UserChange.UPDATE, Instant.EPOCH, user),
+      new UserChangeDto(9L, 9L, 2L, UserChange.DELETE, Instant.EPOCH, null)));
+
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(3, lines.size());
+    UserChangeDto first = objectMapper.readValue(lines.get(0), UserChangeDto.class);
+    assertEquals(7L, first.getChangeId());
+    assertEquals("karan@g.com", first.getUser().getEmailId());
+    UserChangeDto last = objectMapper.readValue(lines.get(2), UserChangeDto.class);
+    assertEquals(UserChange.DELETE, last.getChangeType());
+    assertNull(last.getUser());
+  }
+}
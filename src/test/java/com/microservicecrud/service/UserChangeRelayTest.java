@@ -0,0 +1,103 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.UserChangeDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.model.UserChangeRelayPosition;
+import com.microservicecrud.repository.UserChangeRelayPositionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import({UserService.class, UserMapper.class, UserPatcher.class, HibernateCacheConfig.class, UserChangeSequencer.class,
+  UserChangeRelay.class, UserChangeRelayTest.SinkConfig.class})
+class UserChangeRelayTest {
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  UserChangeRelay userChangeRelay;
+
+  @Autowired
+  UserChangeRelayPositionRepository positionRepository;
+
+  @Autowired
+  RecordingSink sink;
+
+  @BeforeEach
+  public void setUp() {
+    userChangeRelay.batchSize = 2;
+    sink.published.clear();
+    sink.failing = false;
+  }
+
+  @Test
+  void publishesBatchesAndMovesPosition() {
+    for (int i = 0; i < 3; i++) {
+      userService.saveUser(new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + i + "@g.com"));
+    }
+
+    assertEquals(2, userChangeRelay.publishBatch());
+    assertEquals(1, userChangeRelay.publishBatch());
+    assertEquals(0, userChangeRelay.publishBatch());
+
+    assertEquals(3, sink.published.size());
+    assertEquals("karan2@g.com", sink.published.get(2).getUser().getEmailId());
+    assertEquals(sink.published.get(2).getPosition(), position());
+  }
+
+  @Test
+  void failedPublishKeepsPosition() {
+    long before = position();
+    userService.saveUser(new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com"));
+    sink.failing = true;
+
+    assertThrows(RuntimeException.class, () -> userChangeRelay.publishBatch());
+
+    assertTrue(sink.published.isEmpty());
+    assertEquals(before, position());
+  }
+
+  private long position() {
+    return positionRepository.findById(UserChangeRelayPosition.DEFAULT_RELAY).get().getLastPosition();
+  }
+
+  static class RecordingSink implements UserChangeSink {
+
+    final List<UserChangeDto> published = new ArrayList<>();
+
+    boolean failing;
+
+    @Override
+    public void publish(List<UserChangeDto> changes) throws IOException {
+      if (failing) {
+        throw new IOException("sink unavailable");
+      }
+      published.addAll(changes);
+    }
+  }
+
+  @TestConfiguration
+  static class SinkConfig {
+
+    @Bean
+    RecordingSink recordingSink() {
+      return new RecordingSink();
+    }
+  }
+}
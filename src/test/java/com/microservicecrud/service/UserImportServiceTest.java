@@ -0,0 +1,270 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserImportDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import com.microservicecrud.model.UserImport;
+import com.microservicecrud.model.UserImportChunk;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
+import com.microservicecrud.repository.UserImportChunkRepository;
+import com.microservicecrud.repository.UserImportRepository;
+import com.microservicecrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Imports files into an embedded database. The chunks are committed by the worker threads, so the test itself
+ * runs without a transaction and waits for the import to finish.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({UserImportService.class, UserService.class, UserMapper.class, UserPatcher.class, HibernateCacheConfig.class})
+class UserImportServiceTest {
+
+  @TempDir
+  Path directory;
+
+  @Autowired
+  UserImportService userImportService;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  AccountRepository accountRepository;
+
+  @Autowired
+  UserChangeRepository userChangeRepository;
+
+  @Autowired
+  UserImportRepository importRepository;
+
+  @Autowired
+  UserImportChunkRepository chunkRepository;
+
+  @BeforeEach
+  public void setUp() {
+    userImportService.directory = directory;
+    userImportService.workers = 2;
+    userImportService.chunkSize = 3;
+  }
+
+  @AfterEach
+  public void tearDown() {
+    chunkRepository.deleteAllInBatch();
+    importRepository.deleteAllInBatch();
+    userChangeRepository.deleteAllInBatch();
+    accountRepository.deleteAllInBatch();
+    userRepository.deleteAllInBatch();
+  }
+
+  @Test
+  void importsNdjsonInChunksAndRejectsInvalidUsers() throws Exception {
+    User registered = new User("Karan", "shaha", 56565656555L, "Pune", "taken@g.com");
+    userRepository.save(registered);
+    write("users.ndjson",
+      user("user1@g.com", "savings"),
+      user("user2@g.com", "current"),
+      user("user3@g.com", "salaried"),
+      "{\"firstName\":\"Karan\",\"lastName\":\"shaha\",\"phoneNumber\":1,\"address\":\"Pune\",\"emailId\":\"user4@g.com\"}",
+      user("taken@g.com", "savings"),
+      user("user1@g.com", "savings"),
+      user("user7@g.com", "savings"));
+
+    UserImportDto userImport = await(userImportService.startImport("users.ndjson").getImportId());
+
+    assertEquals(UserImport.COMPLETED, userImport.getStatus());
+    assertEquals(UserImport.NDJSON, userImport.getFormat());
+    assertEquals(3, userImport.getCommittedChunks());
+    assertEquals(3, userImport.getImportedUsers());
+    assertEquals(4, userImport.getRejectedUsers());
+    assertTrue(userImport.getUsersPerSecond() > 0);
+    assertEquals(4, userRepository.count());
+    assertEquals(3, accountRepository.count());
+  }
+
+  @Test
+  void importsCsvWithOneRowPerAccount() throws Exception {
+    write("users.csv",
+      "emailId,firstName,lastName,phoneNumber,address,accountType,balance",
+      "user1@g.com,Karan,shaha,56565656555,Pune,savings,100",
+      "user1@g.com,Karan,shaha,56565656555,Pune,salaried,250.5",
+      "user2@g.com,Karan,shaha,56565656555,Pune,savings,10");
+
+    UserImportDto userImport = await(userImportService.startImport("users.csv").getImportId());
+
+    assertEquals(UserImport.COMPLETED, userImport.getStatus());
+    assertEquals(2, userImport.getImportedUsers());
+    List<Long> userIds = userRepository.findAll().stream().map(User::getUserId).sorted()
+      .collect(Collectors.toList());
+    List<Account> accounts = accountRepository.getAccountByUserUserId(userIds.get(0));
+    assertEquals(2, accounts.size());
+    assertEquals(350.5F, accounts.get(0).getBalance() + accounts.get(1).getBalance(), 0F);
+    assertEquals(1, accountRepository.getAccountByUserUserId(userIds.get(1)).size());
+  }
+
+  @Test
+  void resumedImportSkipsCommittedChunks() throws Exception {
+    write("users.ndjson",
+      user("user1@g.com", "savings"),
+      user("user2@g.com", "savings"),
+      user("user3@g.com", "savings"),
+      user("user4@g.com", "savings"),
+      user("user5@g.com", "savings"));
+    UserImport failed = new UserImport(directory.resolve("users.ndjson").toString(), UserImport.NDJSON, 3);
+    failed.setStatus(UserImport.FAILED);
+    failed.setStartedAt(Instant.now());
+    importRepository.save(failed);
+    chunkRepository.save(new UserImportChunk(failed.getImportId(), 0, 3, 0, Instant.now()));
+
+    UserImportDto userImport = await(userImportService.importFile("users.ndjson").getImportId());
+
+    assertEquals(failed.getImportId(), userImport.getImportId());
+    assertEquals(UserImport.COMPLETED, userImport.getStatus());
+    assertNull(userImport.getMessage());
+    assertEquals(2, userImport.getCommittedChunks());
+    assertEquals(5, userImport.getImportedUsers());
+    // only the users of the second chunk were read into the database
+    assertEquals(2, userRepository.count());
+    assertEquals(userImport.getImportId(), userImportService.importFile("users.ndjson").getImportId());
+    assertThrows(ImportNotResumableException.class, () -> userImportService.resumeImport(userImport.getImportId()));
+  }
+
+  @Test
+  void unreadableLinesAreRejectedAndTheImportGoesOn() throws Exception {
+    write("users.ndjson",
+      user("user1@g.com", "savings"),
+      "{\"firstName\":",
+      user("user3@g.com", "savings").replace("56565656555", "\"not a number\""),
+      "",
+      user("user4@g.com", "savings"));
+
+    UserImportDto userImport = await(userImportService.startImport("users.ndjson").getImportId());
+
+    assertEquals(UserImport.COMPLETED, userImport.getStatus());
+    assertEquals(2, userImport.getImportedUsers());
+    assertEquals(2, userImport.getRejectedUsers());
+    assertEquals(2, userRepository.count());
+  }
+
+  @Test
+  void unreadableCsvRowsAreRejectedAndTheImportGoesOn() throws Exception {
+    write("users.csv",
+      "emailId,firstName,lastName,phoneNumber,address,accountType,balance",
+      "user1@g.com,Karan,shaha,56565656555,Pune,savings,100",
+      "user2@g.com,Karan,shaha,not a number,Pune,savings,10",
+      "user3@g.com,Karan,shaha,56565656555,Pune,savings,10",
+      "user3@g.com,Karan,shaha,56565656555,Pune,salaried,10");
+
+    UserImportDto userImport = await(userImportService.startImport("users.csv").getImportId());
+
+    assertEquals(UserImport.COMPLETED, userImport.getStatus());
+    assertEquals(2, userImport.getImportedUsers());
+    assertEquals(1, userImport.getRejectedUsers());
+    assertEquals(3, accountRepository.count());
+  }
+
+  @Test
+  void userWithAnUnreadableAccountRowIsRejectedWhole() throws Exception {
+    write("users.csv",
+      "emailId,firstName,lastName,phoneNumber,address,accountType,balance",
+      "user1@g.com,Karan,shaha,56565656555,Pune,savings,100",
+      "user1@g.com,Karan,shaha,56565656555,Pune,salaried,not a number",
+      "user1@g.com,Karan,shaha,56565656555,Pune,savings,10",
+      "user2@g.com,Karan,shaha,56565656555,Pune,savings,10");
+
+    UserImportDto userImport = await(userImportService.startImport("users.csv").getImportId());
+
+    assertEquals(UserImport.COMPLETED, userImport.getStatus());
+    assertEquals(1, userImport.getImportedUsers());
+    assertEquals(1, userImport.getRejectedUsers());
+    assertEquals("user2@g.com", userRepository.findAll().get(0).getEmailId());
+    assertEquals(1, accountRepository.count());
+  }
+
+  @Test
+  void malformedFileFailsTheImport() throws Exception {
+    write("users.csv",
+      "emailId,firstName,lastName,phoneNumber,address,accountType,balance",
+      "user1@g.com,Karan,shaha,56565656555,Pune,savings,100",
+      "\"user2@g.com,Karan,shaha,56565656555,Pune,savings,10");
+
+    UserImportDto userImport = await(userImportService.startImport("users.csv").getImportId());
+
+    assertEquals(UserImport.FAILED, userImport.getStatus());
+    assertTrue(userImport.getMessage() != null);
+  }
+
+  @Test
+  void onlyFilesOfTheImportDirectoryCanBeImported() throws Exception {
+    write("users.txt", user("user1@g.com", "savings"));
+
+    assertThrows(FileNotImportableException.class, () -> userImportService.startImport("users.txt"));
+    assertThrows(FileNotImportableException.class, () -> userImportService.startImport("missing.csv"));
+    assertThrows(FileNotImportableException.class, () -> userImportService.startImport("../users.csv"));
+  }
+
+  @Test
+  void validateChecksFieldsAndAccountTypes() {
+    UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    assertEquals(UserImportService.ACCOUNT_REQUIRED_MESSAGE, UserImportService.validate(userDto));
+
+    userDto.setAccount(Arrays.asList(new AccountDto(null, 10F, "salaried", null),
+      new AccountDto(null, 10F, "Savings", null)));
+    assertEquals(UserImportService.INVALID_ACCOUNT_TYPE_MESSAGE, UserImportService.validate(userDto));
+
+    userDto.getAccount().get(1).setAccountType("savings");
+    assertNull(UserImportService.validate(userDto));
+
+    userDto.setAddress(" ");
+    assertEquals(UserImportService.USER_FIELDS_REQUIRED_MESSAGE, UserImportService.validate(userDto));
+  }
+
+  private UserImportDto await(long importId) throws InterruptedException {
+    for (int i = 0; i < 1000; i++) {
+      UserImportDto userImport = userImportService.findImport(importId);
+      if (!UserImport.RUNNING.equals(userImport.getStatus())) {
+        return userImport;
+      }
+      Thread.sleep(20);
+    }
+    throw new AssertionError("import " + importId + " did not finish");
+  }
+
+  private void write(String file, String... lines) throws Exception {
+    Files.write(directory.resolve(file), Arrays.asList(lines), StandardCharsets.UTF_8);
+  }
+
+  private static String user(String emailId, String accountType) {
+    return "{\"firstName\":\"Karan\",\"lastName\":\"shaha\",\"phoneNumber\":56565656555,\"address\":\"Pune\"," +
+      "\"emailId\":\"" + emailId + "\",\"account\":[{\"balance\":100.0,\"accountType\":\"" + accountType + "\"}]}";
+  }
+}
@@ -0,0 +1,111 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.CacheConfig;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.model.User;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
+import com.microservicecrud.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(value = UserService.class)
+@Import({UserMapper.class, UserPatcher.class, CacheConfig.class})
+class UserServiceCacheTest {
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  CacheManager cacheManager;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  AccountRepository accountRepository;
+
+  @MockBean
+  UserChangeRepository userChangeRepository;
+
+  @MockBean
+  EntityManager entityManager;
+
+  @BeforeEach
+  public void setUp() {
+    cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    user.setUserId(1);
+    when(userRepository.findForUpdate(1L)).thenReturn(Optional.of(user));
+    when(userRepository.findDtoByUserId(1L))
+      .thenReturn(Optional.of(new UserDto(1L, "Karan", "shaha", 56565656555L, "Pune", "karan@g.com")));
+  }
+
+  @Test
+  void findUserByIdIsServedFromCache() {
+    userService.findUserById(1L);
+    UserDto userDto = userService.findUserById(1L);
+
+    assertEquals("karan@g.com", userDto.getEmailId());
+    verify(userRepository, times(1)).findDtoByUserId(1L);
+  }
+
+  @Test
+  void cachedUserIsNotSharedWithCallers() {
+    UserDto first = userService.findUserById(1L);
+    first.setEmailId("changed@g.com");
+    first.setAccount(null);
+
+    UserDto second = userService.findUserById(1L);
+    assertEquals("karan@g.com", second.getEmailId());
+    assertTrue(second.getAccount().isEmpty());
+    assertNotSame(second, userService.findUserById(1L));
+  }
+
+  @Test
+  void missingUserIsNotCached() {
+    assertNull(userService.findUserById(2L));
+    assertNull(userService.findUserById(2L));
+
+    verify(userRepository, times(2)).findDtoByUserId(2L);
+  }
+
+  @Test
+  void updateUserEvictsOnlyThatUser() {
+    userService.findUserById(1L);
+    cacheManager.getCache(CacheConfig.USERS_CACHE).put(3L, new UserDto());
+
+    userService.updateUser(new UserDto(), 1L, null);
+
+    assertNull(cacheManager.getCache(CacheConfig.USERS_CACHE).get(1L));
+    assertEquals(UserDto.class, cacheManager.getCache(CacheConfig.USERS_CACHE).get(3L).get().getClass());
+  }
+
+  @Test
+  void deleteUserEvictsThatUser() {
+    userService.findUserById(1L);
+
+    userService.deleteUser(1L);
+    userService.findUserById(1L);
+
+    verify(userRepository, times(2)).findDtoByUserId(1L);
+  }
+}
@@ -0,0 +1,322 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserChangeDto;
+import com.microservicecrud.dto.UserChangePageDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import com.microservicecrud.model.UserChange;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.AopTestUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs {@link UserService} against an embedded database and counts the JDBC statements of each operation.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({UserService.class, UserMapper.class, UserPatcher.class, HibernateCacheConfig.class,
+  UserChangeSequencer.class})
+class UserServiceJpaTest {
+
+  private static final int ACCOUNTS = 20;
+
+  @Autowired
+  TestEntityManager testEntityManager;
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  UserChangeSequencer userChangeSequencer;
+
+  private Statistics statistics;
+
+  private long userId;
+
+  private List<Long> accountIds;
+
+  @BeforeEach
+  public void setUp() {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accounts.add(new Account(100F, "savings", user));
+    }
+    user.setAccounts(accounts);
+    testEntityManager.persist(user);
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    userId = user.getUserId();
+    accountIds = new ArrayList<>();
+    for (Account account : accounts) {
+      accountIds.add(account.getAccountId());
+    }
+
+    statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+      .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void updateUserWithManyAccountsUsesConstantStatements() {
+    UserDto userDto = new UserDto();
+    userDto.setLastName("ModifiedLastName");
+    List<AccountDto> accountDtos = new ArrayList<>();
+    for (Long accountId : accountIds) {
+      accountDtos.add(accountDto(accountId, 500F));
+    }
+    accountDtos.add(accountDto(null, 50F));
+    userDto.setAccount(accountDtos);
+
+    UserDto updated = userService.updateUser(userDto, userId, null);
+
+    assertEquals(ACCOUNTS + 1, updated.getAccount().size());
+    assertEquals(ACCOUNTS + 1, statistics.getEntityUpdateCount());
+    assertEquals(1, statistics.getEntityInsertCount());
+    // select of user and accounts, user update with the version, one batched account update, one account insert,
+    // the outbox entry
+    assertEquals(5, statistics.getPrepareStatementCount());
+    assertEquals(1, updated.getVersion());
+  }
+
+  @Test
+  void updateUserWithoutAccountsKeepsThemWithoutExtraQueries() {
+    UserDto userDto = new UserDto();
+    userDto.setFirstName("KK");
+
+    UserDto updated = userService.updateUser(userDto, userId, null);
+
+    assertEquals(ACCOUNTS, updated.getAccount().size());
+    // select of user and accounts, user update, the outbox entry
+    assertEquals(3, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void updateUserWithEmptyAccountsRemovesThemInOneBatch() {
+    UserDto userDto = new UserDto();
+    userDto.setAccount(new ArrayList<>());
+
+    UserDto updated = userService.updateUser(userDto, userId, null);
+    testEntityManager.clear();
+
+    assertEquals(0, updated.getAccount().size());
+    assertEquals(ACCOUNTS, statistics.getEntityDeleteCount());
+    // select of user and accounts, one batched account delete, version increment of the user, the outbox entry
+    assertEquals(4, statistics.getPrepareStatementCount());
+    assertEquals(0, testEntityManager.find(User.class, userId).getAccounts().size());
+  }
+
+  @Test
+  void updateOfAccountsOnlyIncrementsUserVersionOnce() {
+    UserDto userDto = new UserDto();
+    userDto.setAccount(Collections.singletonList(accountDto(accountIds.get(0), 500F)));
+
+    UserDto updated = userService.updateUser(userDto, userId, 0L);
+    testEntityManager.clear();
+
+    assertEquals(1, updated.getVersion());
+    assertEquals(1, testEntityManager.find(User.class, userId).getVersion());
+  }
+
+  @Test
+  void updateOfUserAndAccountsIncrementsUserVersionOnce() {
+    UserDto userDto = new UserDto();
+    userDto.setFirstName("KK");
+    userDto.setAccount(Collections.singletonList(accountDto(accountIds.get(0), 500F)));
+
+    UserDto updated = userService.updateUser(userDto, userId, null);
+
+    assertEquals(1, updated.getVersion());
+  }
+
+  @Test
+  void updateWithStaleVersionIsRejected() {
+    UserDto userDto = new UserDto();
+    userDto.setFirstName("KK");
+
+    assertThrows(OptimisticLockingFailureException.class, () -> userService.updateUser(userDto, userId, 7L));
+    // the select of user and accounts and the version check against the database, no write
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void patchOfAccountsOnlyIncrementsUserVersion() {
+    Map<String, Object> account = new HashMap<>();
+    account.put("accountId", accountIds.get(0));
+    account.put("balance", 10);
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("account", Collections.singletonList(account));
+
+    UserDto patched = userService.patchUser(userId, fields, 0L);
+
+    assertEquals(1, patched.getVersion());
+  }
+
+  @Test
+  void deleteUserTakesTwoStatementsWithoutLoading() {
+    assertTrue(userService.deleteUser(userId));
+
+    // the outbox entry, one DELETE for the accounts, one for the user
+    assertEquals(3, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertNull(testEntityManager.find(User.class, userId));
+    assertFalse(userService.deleteUser(userId));
+  }
+
+  @Test
+  void deleteUsersRemovesExistingOnes() {
+    User other = new User("Karan", "shaha", 56565656555L, "Pune", "other@g.com");
+    testEntityManager.persist(other);
+    testEntityManager.flush();
+    testEntityManager.clear();
+    statistics.clear();
+
+    int deleted = userService.deleteUsers(Arrays.asList(userId, other.getUserId(), -1L));
+
+    assertEquals(2, deleted);
+    assertEquals(3, statistics.getPrepareStatementCount());
+    assertNull(testEntityManager.find(User.class, other.getUserId()));
+  }
+
+  @Test
+  void exportReadsAccountsPerSliceOfUsers() {
+    for (int i = 0; i < 4; i++) {
+      User other = new User("Karan", "shaha", 56565656555L, "Pune", "other" + i + "@g.com");
+      other.setAccounts(Collections.singletonList(new Account(10F, "savings", other)));
+      testEntityManager.persist(other);
+    }
+    testEntityManager.flush();
+    testEntityManager.clear();
+    statistics.clear();
+    AopTestUtils.<UserService>getTargetObject(userService).exportSliceSize = 2;
+
+    List<UserDto> exported = new ArrayList<>();
+    userService.exportUsers(exported::add);
+
+    assertEquals(5, exported.size());
+    assertEquals(ACCOUNTS, exported.get(0).getAccount().size());
+    assertEquals(1, exported.get(4).getAccount().size());
+    // the user cursor and one account statement per slice of two users
+    assertEquals(4, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void changeFeedListsEachChangedUserOnceWithItsCurrentState() {
+    userService.updateUser(firstName("KK"), userId, null);
+    userService.patchUser(userId, Collections.singletonMap("lastName", "Shah"), null);
+    long otherId = userService.saveUser(new UserDto("Karan", "shaha", 56565656555L, "Pune", "other@g.com")).getUserId();
+    userService.deleteUser(otherId);
+    userChangeSequencer.sequence();
+
+    UserChangePageDto page = userService.findChanges(0L, 100);
+
+    assertEquals(2, page.getChanges().size());
+    UserChangeDto updated = page.getChanges().get(0);
+    assertEquals(userId, updated.getUserId());
+    assertEquals(UserChange.UPDATE, updated.getChangeType());
+    assertEquals("Shah", updated.getUser().getLastName());
+    assertEquals(ACCOUNTS, updated.getUser().getAccount().size());
+    UserChangeDto deleted = page.getChanges().get(1);
+    assertEquals(otherId, deleted.getUserId());
+    assertEquals(UserChange.DELETE, deleted.getChangeType());
+    assertNull(deleted.getUser());
+    assertEquals(deleted.getPosition(), page.getNextSince());
+
+    UserChangePageDto next = userService.findChanges(page.getNextSince(), 100);
+    assertTrue(next.getChanges().isEmpty());
+    assertEquals(page.getNextSince(), next.getNextSince());
+  }
+
+  @Test
+  void unsequencedChangesAreHeldBack() {
+    userService.updateUser(firstName("KK"), userId, null);
+
+    UserChangePageDto page = userService.findChanges(0L, 100);
+
+    assertTrue(page.getChanges().isEmpty());
+    assertEquals(0L, page.getNextSince());
+  }
+
+  @Test
+  void changesArePositionedAfterThoseAlreadySequenced() {
+    userService.updateUser(firstName("KK"), userId, null);
+    userChangeSequencer.sequence();
+    long nextSince = userService.findChanges(0L, 100).getNextSince();
+    long otherId = userService.saveUser(new UserDto("Karan", "shaha", 56565656555L, "Pune", "other@g.com")).getUserId();
+    // a change id taken before the ones already positioned, by a transaction that committed late
+    testEntityManager.getEntityManager().createNativeQuery("update user_change set change_id = 0 where user_id = ?")
+      .setParameter(1, otherId).executeUpdate();
+    userChangeSequencer.sequence();
+
+    UserChangePageDto page = userService.findChanges(nextSince, 100);
+
+    assertEquals(1, page.getChanges().size());
+    assertEquals(otherId, page.getChanges().get(0).getUserId());
+    assertEquals(0L, page.getChanges().get(0).getChangeId());
+    assertTrue(page.getNextSince() > nextSince);
+  }
+
+  @Test
+  void updateToRegisteredEmailIsRejected() {
+    User other = new User("Karan", "shaha", 56565656555L, "Pune", "other@g.com");
+    testEntityManager.persist(other);
+    testEntityManager.flush();
+    testEntityManager.clear();
+    UserDto userDto = new UserDto();
+    userDto.setEmailId("other@g.com");
+
+    assertThrows(EmailAlreadyRegisteredException.class, () -> userService.updateUser(userDto, userId, null));
+    assertThrows(EmailAlreadyRegisteredException.class,
+      () -> userService.patchUser(userId, Collections.singletonMap("emailId", "other@g.com"), null));
+
+    userDto.setEmailId("karan@g.com");
+    assertEquals("karan@g.com", userService.updateUser(userDto, userId, null).getEmailId());
+  }
+
+  @Test
+  void rejectedUpdateRecordsNoChange() {
+    assertThrows(OptimisticLockingFailureException.class, () -> userService.updateUser(firstName("KK"), userId, 7L));
+    userChangeSequencer.sequence();
+
+    assertTrue(userService.findChanges(0L, 100).getChanges().isEmpty());
+  }
+
+  private static UserDto firstName(String firstName) {
+    UserDto userDto = new UserDto();
+    userDto.setFirstName(firstName);
+    return userDto;
+  }
+
+  private static AccountDto accountDto(Long accountId, Float balance) {
+    AccountDto accountDto = new AccountDto();
+    accountDto.setAccountId(accountId);
+    accountDto.setAccountType("savings");
+    accountDto.setBalance(balance);
+    return accountDto;
+  }
+}
@@ -0,0 +1,61 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.MetricsConfig;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
+import com.microservicecrud.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(value = UserService.class)
+@Import({UserMapper.class, UserPatcher.class, MetricsConfig.class, AopAutoConfiguration.class, SimpleMeterRegistry.class})
+class UserServiceMetricsTest {
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  AccountRepository accountRepository;
+
+  @MockBean
+  UserChangeRepository userChangeRepository;
+
+  @MockBean
+  EntityManager entityManager;
+
+  @Test
+  void serviceMethodsAreTimedPerMethod() {
+    when(userRepository.findDtoByUserId(1L)).thenReturn(Optional.empty());
+
+    userService.findUserById(1L);
+    userService.findUserById(1L);
+
+    Timer timer = meterRegistry.find(MetricsConfig.USER_SERVICE_TIMER)
+      .tag("class", UserService.class.getName())
+      .tag("method", "findUserById")
+      .timer();
+    assertNotNull(timer);
+    assertEquals(2, timer.count());
+  }
+}
@@ -0,0 +1,163 @@
+package com.microservicecrud.service;
+
+import com.microservicecrud.config.HibernateCacheConfig;
+import com.microservicecrud.dto.AccountDto;
+import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
+import com.microservicecrud.model.Account;
+import com.microservicecrud.model.User;
+import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs writes of {@link UserService} against an embedded database with the Hibernate second-level cache. Every
+ * call commits on its own, so the cache is filled and invalidated like between requests.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserService.class, AccountService.class, UserMapper.class, UserPatcher.class, HibernateCacheConfig.class})
+class UserServiceSecondLevelCacheTest {
+
+  private static final int ACCOUNTS = 5;
+
+  @Autowired
+  UserService userService;
+
+  @Autowired
+  AccountService accountService;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  AccountRepository accountRepository;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private Statistics statistics;
+
+  private long userId;
+
+  private long accountId;
+
+  @BeforeEach
+  public void setUp() {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accounts.add(new Account(100F, "savings", user));
+    }
+    user.setAccounts(accounts);
+    userRepository.save(user);
+    userId = user.getUserId();
+    accountId = accounts.get(0).getAccountId();
+
+    entityManagerFactory.getCache().evictAll();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    accountRepository.deleteAllInBatch();
+    userRepository.deleteAllInBatch();
+  }
+
+  @Test
+  void repeatedUpdateLoadsUserAndAccountsFromCache() {
+    userService.updateUser(firstName("KK"), userId, null);
+    statistics.clear();
+
+    UserDto updated = userService.updateUser(firstName("KD"), userId, null);
+
+    assertEquals("KD", updated.getFirstName());
+    assertEquals(ACCOUNTS, updated.getAccount().size());
+    assertEquals(2, updated.getVersion());
+    // user, accounts collection and each account are hits, only the user update and its outbox entry are sent
+    assertEquals(ACCOUNTS + 2, statistics.getSecondLevelCacheHitCount());
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void updateBasedOnWriteOfAnotherInstanceRefreshesStaleEntry() {
+    userService.updateUser(firstName("KK"), userId, null);
+    // another instance updates the user, this instance's cache still holds version 1
+    jdbcTemplate.update("update user set first_name = 'KD', version = version + 1 where user_id = ?", userId);
+
+    UserDto updated = userService.updateUser(firstName("KA"), userId, 2L);
+
+    assertEquals("KA", updated.getFirstName());
+    assertEquals(3, updated.getVersion());
+    assertThrows(OptimisticLockingFailureException.class, () -> userService.updateUser(firstName("KB"), userId, 2L));
+  }
+
+  @Test
+  void balanceAdjustmentInvalidatesCachedAccounts() {
+    userService.updateUser(firstName("KK"), userId, null);
+
+    accountService.adjustBalance(accountId, 50F, false);
+    UserDto updated = userService.updateUser(firstName("KD"), userId, null);
+
+    assertEquals(150F, balanceOf(updated, accountId), 0F);
+    // one increment per update and one for the adjustment
+    assertEquals(3, updated.getVersion());
+  }
+
+  @Test
+  void accountsByUserQueryIsServedFromQueryCache() {
+    accountRepository.getAccountByUserUserId(userId);
+    statistics.clear();
+
+    List<Account> accounts = accountRepository.getAccountByUserUserId(userId);
+
+    assertEquals(ACCOUNTS, accounts.size());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+    assertEquals(0, statistics.getPrepareStatementCount());
+
+    accountService.adjustBalance(accountId, 50F, false);
+    statistics.clear();
+
+    assertEquals(ACCOUNTS, accountRepository.getAccountByUserUserId(userId).size());
+    assertEquals(0, statistics.getQueryCacheHitCount());
+    assertTrue(statistics.getPrepareStatementCount() > 0);
+  }
+
+  private static UserDto firstName(String firstName) {
+    UserDto userDto = new UserDto();
+    userDto.setFirstName(firstName);
+    return userDto;
+  }
+
+  private static float balanceOf(UserDto userDto, long accountId) {
+    for (AccountDto accountDto : userDto.getAccount()) {
+      if (accountDto.getAccountId() == accountId) {
+        return accountDto.getBalance();
+      }
+    }
+    throw new AssertionError("account " + accountId + " not found");
+  }
+}
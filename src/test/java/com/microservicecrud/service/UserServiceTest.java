@@ -2,9 +2,15 @@ package com.microservicecrud.service;
 
 import com.microservicecrud.dto.AccountDto;
 import com.microservicecrud.dto.UserDto;
+import com.microservicecrud.dto.UserPageDto;
+import com.microservicecrud.mapper.InvalidPatchException;
+import com.microservicecrud.mapper.UserMapper;
+import com.microservicecrud.mapper.UserPatcher;
 import com.microservicecrud.model.Account;
 import com.microservicecrud.model.User;
+import com.microservicecrud.model.UserChange;
 import com.microservicecrud.repository.AccountRepository;
+import com.microservicecrud.repository.UserChangeRepository;
 import com.microservicecrud.repository.UserRepository;
 import org.junit.After;
 import org.junit.Before;
@@ -14,19 +20,36 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(value = UserService.class)
+@Import({UserMapper.class, UserPatcher.class})
 class UserServiceTest {
 
   @Autowired
@@ -38,6 +61,12 @@ class UserServiceTest {
   @MockBean
   AccountRepository accountRepository;
 
+  @MockBean
+  UserChangeRepository userChangeRepository;
+
+  @MockBean
+  EntityManager entityManager;
+
   @Before
   public void setUp() {
     MockitoAnnotations.initMocks(this);
@@ -64,6 +93,23 @@ class UserServiceTest {
 
   }
 
+  @Test
+  void saveUsers() {
+    List<UserDto> userDtos = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      userDtos.add(createUserDTODummyList().get(0));
+    }
+    userService.batchSize = 2;
+
+    List<Long> userIds = userService.saveUsers(userDtos);
+
+    assertEquals(5, userIds.size());
+    verify(userRepository, times(5)).save(any(User.class));
+    verify(entityManager, times(3)).flush();
+    verify(entityManager, times(3)).clear();
+    verify(userChangeRepository, times(3)).recordChanges(any(), eq(UserChange.CREATE));
+  }
+
   @Test
   void updateUserWithLastNameAndAccBalance() {
     UserDto userDto = createUserDTODummyList().get(0);
@@ -78,17 +124,20 @@ class UserServiceTest {
     acc.setAccountType(accountDto.getAccountType());
     acc.setBalance(accountDto.getBalance());
     acc.setUser(user);
+    user.setAccounts(new ArrayList<>(Collections.singletonList(acc)));
 
-    when(userRepository.findById(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
-    when(accountRepository.findById(1L)).thenReturn(java.util.Optional.of(acc));
-    when(userRepository.saveAndFlush(user)).thenReturn(user);
+    when(userRepository.findForUpdate(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
 
     userDto.setLastName("ModifiedLastName");
     userDto.getAccount().get(0).setBalance(5000f);
-    UserDto actual = userService.updateUser(userDto, 1L);
+    UserDto actual = userService.updateUser(userDto, 1L, null);
 
     assertEquals(userDto.getLastName(), actual.getLastName());
     assertEquals(userDto.getAccount().get(0).getBalance(), actual.getAccount().get(0).getBalance());
+    assertEquals(1, actual.getAccount().size());
+    assertEquals(Float.valueOf(5000f), acc.getBalance());
+    verify(accountRepository, never()).findById(any());
+    verify(userRepository).flush();
 
   }
 
@@ -108,11 +157,10 @@ class UserServiceTest {
     List<AccountDto> accounts = new ArrayList<>();
     accounts.add(acc);
 
-    when(userRepository.findById(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
-    when(userRepository.saveAndFlush(user)).thenReturn(user);
+    when(userRepository.findForUpdate(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
 
     userDto.setAccount(accounts);
-    UserDto actual = userService.updateUser(userDto, 1L);
+    UserDto actual = userService.updateUser(userDto, 1L, null);
 
     assertEquals(userDto.getAccount().get(0).getBalance(), actual.getAccount().get(0).getBalance());
     assertEquals(1, actual.getAccount().size());
@@ -127,14 +175,18 @@ class UserServiceTest {
       userDto.getAddress(), userDto.getEmailId());
     userDto.setAccount(null);
 
-    when(userRepository.findById(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
-    when(userRepository.saveAndFlush(user)).thenReturn(user);
+    Account acc = new Account(400f, "savings", user);
+    acc.setAccountId(1);
+    user.setAccounts(new ArrayList<>(Collections.singletonList(acc)));
+
+    when(userRepository.findForUpdate(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
 
     List<AccountDto> accounts = new ArrayList<>();
     userDto.setAccount(accounts);
-    UserDto actual = userService.updateUser(userDto, 1L);
+    UserDto actual = userService.updateUser(userDto, 1L, null);
 
     assertTrue(actual.getAccount().size() == 0);
+    verify(entityManager).remove(acc);
 
   }
 
@@ -153,14 +205,13 @@ class UserServiceTest {
     acc.setBalance(400f);
     acc.setUser(user);
     accounts.add(acc);
+    user.setAccounts(accounts);
 
-    when(userRepository.findById(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
-    when(userRepository.saveAndFlush(user)).thenReturn(user);
-    when(accountRepository.getAccountByUserUserId(1l)).thenReturn(accounts);
+    when(userRepository.findForUpdate(userDto.getUserId())).thenReturn(java.util.Optional.of(user));
 
     userDto.setAccount(null);
     userDto.setFirstName("KK");
-    UserDto actual = userService.updateUser(userDto, 1L);
+    UserDto actual = userService.updateUser(userDto, 1L, null);
     Float amt = actual.getAccount().get(0).getBalance();
     Float expectedAmt = 400f;
     assertTrue(actual.getAccount().size() == 1);
@@ -168,57 +219,158 @@ class UserServiceTest {
   }
 
   @Test
-  void updateUserPartially() {
-    UserDto userDto = createUserDTODummyList().get(0);
-
-    User user = new User(userDto.getFirstName(), userDto.getLastName(), userDto.getPhoneNumber(),
-      userDto.getAddress(), userDto.getEmailId());
+  void patchUser() {
+    User user = new User("Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
     user.setUserId(1);
-    user.setAddress("USA");
-    when(userRepository.save(any(User.class))).thenReturn(user);
-    userDto.setAddress("USA");
-    User actuallUser = userService.updateUserPartially(userDto);
+    Account account = new Account(100F, "savings", user);
+    account.setAccountId(4);
+    user.setAccounts(new ArrayList<>(Collections.singletonList(account)));
+    when(userRepository.findForUpdate(1L)).thenReturn(java.util.Optional.of(user));
+
+    Map<String, Object> accountPatch = new HashMap<>();
+    accountPatch.put("accountId", 4);
+    accountPatch.put("balance", 250);
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("address", "USA");
+    fields.put("account", Collections.singletonList(accountPatch));
+
+    UserDto actual = userService.patchUser(1L, fields, null);
+
+    assertEquals("USA", actual.getAddress());
+    assertEquals("USA", user.getAddress());
+    assertEquals(Float.valueOf(250F), account.getBalance());
+    assertEquals("Karan", user.getFirstName());
+    verify(userRepository, never()).save(any(User.class));
+  }
 
-    assertEquals("USA", actuallUser.getAddress());
+  @Test
+  void patchUserWithUnknownFieldDoesNotLoadUser() {
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("nickName", "KK");
+
+    assertThrows(InvalidPatchException.class, () -> userService.patchUser(1L, fields, null));
+    verify(userRepository, never()).findForUpdate(anyLong());
   }
 
   @Test
   void deleteUser() {
+    when(userRepository.deleteByUserIdIn(Collections.singletonList(1L))).thenReturn(1);
 
-    userRepository.deleteById(1l);
+    assertTrue(userService.deleteUser(1L));
+    verify(userChangeRepository).recordChanges(Collections.singletonList(1L), UserChange.DELETE);
+    verify(accountRepository).deleteByUserIdIn(Collections.singletonList(1L));
+    verify(userRepository, never()).deleteById(any());
+  }
+
+  @Test
+  void deleteMissingUser() {
+    assertFalse(userService.deleteUser(2L));
+  }
+
+  @Test
+  void deleteUsersInChunks() {
+    userService.deleteChunkSize = 2;
+    when(userRepository.deleteByUserIdIn(Arrays.asList(1L, 2L))).thenReturn(2);
+    when(userRepository.deleteByUserIdIn(Arrays.asList(3L, 4L))).thenReturn(1);
+    when(userRepository.deleteByUserIdIn(Collections.singletonList(5L))).thenReturn(1);
+
+    int deleted = userService.deleteUsers(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+
+    assertEquals(4, deleted);
+    verify(accountRepository, times(3)).deleteByUserIdIn(any());
+    verify(userRepository, times(3)).deleteByUserIdIn(any());
   }
 
   @Test
   void findUserById() {
-    UserDto userDto = createUserDTODummyList().get(0);
-    User user = new User(userDto.getFirstName(), userDto.getLastName(), userDto.getPhoneNumber(),
-      userDto.getAddress(), userDto.getEmailId());
-    user.setUserId(1);
+    UserDto userDto = new UserDto(1L, "Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
 
-    when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(user));
+    when(userRepository.findDtoByUserId(1L)).thenReturn(java.util.Optional.of(userDto));
+    when(accountRepository.findDtosByUserIdIn(Collections.singleton(1L)))
+      .thenReturn(Collections.singletonList(new AccountDto(4L, 100F, "savings", 1L)));
 
     UserDto actualUserDto = userService.findUserById(1L);
     assertEquals(1, actualUserDto.getUserId());
     assertEquals("karan@g.com", actualUserDto.getEmailId());
+    assertEquals(Long.valueOf(4L), actualUserDto.getAccount().get(0).getAccountId());
+    verify(userRepository, never()).findForUpdate(anyLong());
 
   }
 
   @Test
-  void findAll() {
-    List<UserDto> userDtos = createUserDTODummyList();
-    UserDto userDto = userDtos.get(0);
-    User user = new User(userDto.getFirstName(), userDto.getLastName(), userDto.getPhoneNumber(),
-      userDto.getAddress(), userDto.getEmailId());
-    user.setUserId(1);
-    List<User> users = new ArrayList<>();
-    users.add(user);
+  void findPage() {
+    UserDto userDto = new UserDto(1L, "Karan", "shaha", 56565656555L, "Pune", "karan@g.com");
+
+    when(userRepository.findDtosAfter(0L, PageRequest.of(0, 11))).thenReturn(new ArrayList<>(Collections.singletonList(userDto)));
+    when(accountRepository.findDtosByUserIdIn(Collections.singleton(1L))).thenReturn(Collections.<AccountDto>emptyList());
+
+    UserPageDto page = userService.findPage(null, 10);
+    assertNotNull(page.getUsers());
+    assertEquals(1, page.getUsers().get(0).getUserId());
+    assertEquals(0, page.getUsers().get(0).getAccount().size());
+    assertNull(page.getNextCursor());
 
-    when(userRepository.findAll()).thenReturn(users);
+  }
+
+  @Test
+  void findPageWithNextCursor() {
+    List<UserDto> users = new ArrayList<>();
+    for (long id = 6; id <= 8; id++) {
+      users.add(new UserDto(id, "Karan", "shaha", 56565656555L, "Pune", "karan" + id + "@g.com"));
+    }
+
+    when(userRepository.findDtosAfter(eq(5L), any(PageRequest.class))).thenReturn(users);
+    when(accountRepository.findDtosByUserIdIn(new HashSet<>(Arrays.asList(6L, 7L))))
+      .thenReturn(Arrays.asList(new AccountDto(1L, 100F, "savings", 6L), new AccountDto(2L, 200F, "salaried", 7L),
+        new AccountDto(3L, 300F, "savings", 7L)));
+
+    UserPageDto page = userService.findPage(5L, 2);
+    assertEquals(2, page.getUsers().size());
+    assertEquals(7L, page.getNextCursor().longValue());
+    assertEquals(1, page.getUsers().get(0).getAccount().size());
+    assertEquals(2, page.getUsers().get(1).getAccount().size());
 
-    List<UserDto> userDtos1 = userService.findAll();
-    assertNotNull(userDtos1);
-    assertEquals(1, userDtos1.get(0).getUserId());
+  }
+
+  @Test
+  void searchUsers() {
+    List<UserDto> users = new ArrayList<>();
+    for (long id = 3; id <= 4; id++) {
+      users.add(new UserDto(id, "Karan", "shaha", 56565656555L, "Pune", "karan" + id + "@g.com"));
+    }
 
+    when(userRepository.searchDtos(null, 56565656555L, "sha", 2L, 2)).thenReturn(users);
+
+    UserPageDto page = userService.searchUsers(null, 56565656555L, "sha", 2L, 1);
+    assertEquals(1, page.getUsers().size());
+    assertEquals(3L, page.getNextCursor().longValue());
+    verify(accountRepository).findDtosByUserIdIn(Collections.singleton(3L));
+
+  }
+
+  @Test
+  void exportUsers() {
+    List<UserDto> users = new ArrayList<>();
+    for (long id = 1; id <= 5; id++) {
+      UserDto userDto = new UserDto("Karan", "shaha", 56565656555L, "Pune", "karan" + id + "@g.com");
+      userDto.setUserId(id);
+      users.add(userDto);
+    }
+    AccountDto accountDto = new AccountDto(1L, 100F, "savings", 5L);
+    when(userRepository.streamDtosByOrderByUserId()).thenReturn(users.stream());
+    when(accountRepository.findDtosByUserIdIn(any())).thenReturn(Collections.emptyList());
+    when(accountRepository.findDtosByUserIdIn(Collections.singleton(5L)))
+      .thenReturn(Collections.singletonList(accountDto));
+    userService.exportSliceSize = 2;
+
+    List<UserDto> exported = new ArrayList<>();
+    userService.exportUsers(exported::add);
+
+    assertEquals(5, exported.size());
+    assertEquals("karan5@g.com", exported.get(4).getEmailId());
+    assertEquals(Collections.singletonList(accountDto), exported.get(4).getAccount());
+    // one account statement per slice of two users
+    verify(accountRepository, times(3)).findDtosByUserIdIn(any());
   }
 
   private List<UserDto> createUserDTODummyList() {